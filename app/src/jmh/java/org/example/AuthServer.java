@@ -0,0 +1,93 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The whole service on a random port, for load benchmarks that go through HTTP the way a
+// client does. Runs on the test profile (in-memory H2, cheapest bcrypt) with the rate limiter
+// off. H2 answers without network latency, so blocking effects are understated: point it at
+// MySQL with -jvmArgsAppend -Dspring.datasource.url=... for numbers that match production
+public final class AuthServer implements AutoCloseable {
+
+    private final ServletWebServerApplicationContext context;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+
+    private AuthServer(ServletWebServerApplicationContext context) {
+        this.context = context;
+        this.baseUrl = "http://localhost:" + context.getWebServer().getPort();
+    }
+
+    //Extra properties as key=value, they override the defaults below
+    public static AuthServer start(String... properties) {
+        return start(List.of(), properties);
+    }
+
+    public static AuthServer start(List<ApplicationContextInitializer<?>> initializers, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.profiles.active=test",
+                "--auth.rate-limit.enabled=false",
+                "--logging.level.root=WARN"));
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+        return new AuthServer((ServletWebServerApplicationContext) new SpringApplicationBuilder(App.class)
+                .initializers(initializers.toArray(ApplicationContextInitializer[]::new))
+                .run(args.toArray(String[]::new)));
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public HttpResponse<String> post(String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //The refresh token of a 200 response, anything else fails the benchmark rather than looking fast
+    public String refreshToken(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("token").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String signup(String username) {
+        return refreshToken(post("/auth/v1/signup", TestUsers.signup(username)));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
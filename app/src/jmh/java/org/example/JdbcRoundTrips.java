@@ -0,0 +1,86 @@
+package org.example;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts statements executed and transactions committed through the app's DataSource, on
+// every thread, so a benchmark can report database round trips per operation. Unlike
+// SqlStatementCounter it also sees JdbcTemplate work and background writers
+public final class JdbcRoundTrips {
+
+    private static final LongAdder STATEMENTS = new LongAdder();
+
+    private static final LongAdder COMMITS = new LongAdder();
+
+    private JdbcRoundTrips() {
+    }
+
+    //Wraps the DataSource bean once it is fully configured
+    public static ApplicationContextInitializer<ConfigurableApplicationContext> initializer() {
+        return context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? counting(dataSource) : bean;
+            }
+        });
+    }
+
+    public static void reset() {
+        STATEMENTS.reset();
+        COMMITS.reset();
+    }
+
+    public static long statements() {
+        return STATEMENTS.sum();
+    }
+
+    public static long commits() {
+        return COMMITS.sum();
+    }
+
+    private static DataSource counting(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return proxy(Connection.class, super.getConnection());
+            }
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(JdbcRoundTrips.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = invoke(method, target, args);
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                        @SuppressWarnings("unchecked")
+                        Class<Statement> returned = (Class<Statement>) method.getReturnType();
+                        return proxy(returned, statement);
+                    }
+                    if (target instanceof Statement && method.getName().startsWith("execute")) {
+                        STATEMENTS.increment();
+                    } else if (target instanceof Connection && method.getName().equals("commit")) {
+                        COMMITS.increment();
+                    }
+                    return result;
+                }));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
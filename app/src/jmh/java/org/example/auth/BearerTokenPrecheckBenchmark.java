@@ -0,0 +1,82 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Rejecting a bad bearer token: straight into jjwt and its exception, as the filter did
+// before, against BearerTokenPrecheck first. A forged signature passes the precheck, so that
+// case shows what the precheck adds when it cannot help
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BearerTokenPrecheckBenchmark {
+
+    @Param({"garbage", "alg_none", "bad_signature"})
+    private String token;
+
+    private JwtService jwtService;
+
+    private BearerTokenPrecheck precheck;
+
+    private String header;
+
+    @Setup
+    public void setUp() {
+        JwtKeyProvider keyProvider = TestKeys.hmacProvider();
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtKeyProvider", keyProvider);
+        precheck = new BearerTokenPrecheck(4096, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(precheck, "jwtKeyProvider", keyProvider);
+
+        String valid = jwtService.GenerateToken("alice");
+        String jws = switch (token) {
+            case "garbage" -> "not.a-jwt.at-all-but-long-enough-to-look-like-one";
+            case "alg_none" -> base64Url("{\"alg\":\"none\"}") + "." + valid.split("\\.")[1] + ".";
+            case "bad_signature" -> valid.substring(0, valid.lastIndexOf('.') + 1) + base64Url("forged");
+            default -> throw new IllegalArgumentException("Unknown token " + token);
+        };
+        header = BearerTokenPrecheck.BEARER_PREFIX + jws;
+    }
+
+    @Benchmark
+    public Object parseOnly() {
+        return parse(header.substring(BearerTokenPrecheck.BEARER_PREFIX.length()));
+    }
+
+    @Benchmark
+    public Object precheckThenParse() {
+        BearerTokenPrecheck.Rejection rejection = precheck.check(header);
+        return rejection != null ? rejection : parse(header.substring(BearerTokenPrecheck.BEARER_PREFIX.length()));
+    }
+
+    private Object parse(String jws) {
+        try {
+            return jwtService.parseToken(jws);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static String base64Url(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.example.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-call path JwtService used to take (decode the secret, build a key and a parser for
+// every token) against the key material and parser JwtKeyProvider builds once
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtKeyBenchmark {
+
+    private JwtKeyProvider keyProvider;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        keyProvider = TestKeys.hmacProvider();
+        token = keyProvider.current().builder().subject("alice").compact();
+    }
+
+    @Benchmark
+    public Claims parsePerCallKey() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.JWT_SECRET_KEY)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims parseSharedParser() {
+        return keyProvider.parser().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public String signPerCallKey() {
+        return Jwts.builder()
+                .subject("alice")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.JWT_SECRET_KEY)))
+                .compact();
+    }
+
+    @Benchmark
+    public String signCachedKey() {
+        return keyProvider.current().builder().subject("alice").compact();
+    }
+}
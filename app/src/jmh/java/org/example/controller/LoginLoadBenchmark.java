@@ -0,0 +1,80 @@
+package org.example.controller;
+
+import org.example.AuthServer;
+import org.example.TestUsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Login and refresh over HTTP with 32 concurrent clients, served on platform threads and on
+// virtual threads (spring.threads.virtual.enabled). Throughput plus the SampleTime
+// percentiles, p99 being the one to compare
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class LoginLoadBenchmark {
+
+    private static final int USERS = 64;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private AuthServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        server = AuthServer.start("spring.threads.virtual.enabled=" + virtualThreads);
+        for (int i = 0; i < USERS; i++) {
+            server.signup("load-user-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    //Refresh rotates the token, so each client keeps its own session and the latest token
+    @State(Scope.Thread)
+    public static class Session {
+
+        private String refreshToken;
+
+        @Setup(Level.Trial)
+        public void signup(LoginLoadBenchmark benchmark, ThreadParams thread) {
+            refreshToken = benchmark.server.signup("refresh-user-" + thread.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public String login() {
+        String username = "load-user-" + ThreadLocalRandom.current().nextInt(USERS);
+        return server.refreshToken(server.post("/auth/v1/login", TestUsers.login(username, TestUsers.PASSWORD)));
+    }
+
+    @Benchmark
+    public String refresh(Session session) {
+        session.refreshToken = server.refreshToken(
+                server.post("/auth/v1/refreshToken", TestUsers.refresh(session.refreshToken)));
+        return session.refreshToken;
+    }
+}
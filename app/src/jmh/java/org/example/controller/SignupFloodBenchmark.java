@@ -0,0 +1,74 @@
+package org.example.controller;
+
+import org.example.AuthServer;
+import org.example.TestUsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A flood of signups with a weak password against one of valid signups. The invalid ones are
+// rejected before bcrypt and the database, so they should cost a fraction of a valid signup,
+// which is what every one of them paid before validation moved to the front
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class SignupFloodBenchmark {
+
+    //4 is the test profile's cost, 10 the production floor
+    @Param({"4", "10"})
+    private int bcryptStrength;
+
+    private final AtomicLong usernames = new AtomicLong();
+
+    private AuthServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        server = AuthServer.start(
+                "auth.password.bcrypt.min-strength=" + bcryptStrength,
+                "auth.password.bcrypt.max-strength=" + bcryptStrength);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public int invalidSignup() {
+        return expect(400, server.post("/auth/v1/signup",
+                TestUsers.signup("flood-" + usernames.incrementAndGet(), "weak")));
+    }
+
+    @Benchmark
+    public int validSignup() {
+        return expect(200, server.post("/auth/v1/signup",
+                TestUsers.signup("flood-" + usernames.incrementAndGet())));
+    }
+
+    private static int expect(int status, HttpResponse<String> response) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.service;
+
+import org.example.AuthServer;
+import org.example.JdbcRoundTrips;
+import org.example.TestUsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Concurrent logins with refresh-token group commit off and on
+// (auth.refresh-token.group-commit.enabled). Besides throughput, each iteration prints the
+// statements executed and transactions committed per login, counted at the DataSource
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class GroupCommitLoadBenchmark {
+
+    private static final int USERS = 256;
+
+    @Param({"false", "true"})
+    private boolean groupCommit;
+
+    private final LongAdder logins = new LongAdder();
+
+    private AuthServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        server = AuthServer.start(List.of(JdbcRoundTrips.initializer()),
+                "auth.refresh-token.group-commit.enabled=" + groupCommit);
+        for (int i = 0; i < USERS; i++) {
+            server.signup("commit-user-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        logins.reset();
+        JdbcRoundTrips.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        long count = Math.max(1, logins.sum());
+        System.out.printf("%n%d logins, %.2f statements and %.2f commits per login%n",
+                logins.sum(), (double) JdbcRoundTrips.statements() / count, (double) JdbcRoundTrips.commits() / count);
+    }
+
+    @Benchmark
+    public String login() {
+        String username = "commit-user-" + ThreadLocalRandom.current().nextInt(USERS);
+        String token = server.refreshToken(
+                server.post("/auth/v1/login", TestUsers.login(username, TestUsers.PASSWORD)));
+        logins.increment();
+        return token;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.AuthServer;
+import org.example.entities.RefreshToken;
+import org.example.model.RefreshSession;
+import org.example.utils.TokenHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// What the refresh endpoint reads for a token: the RefreshSession projection against the
+// RefreshToken entity with its UserInfo and roles, which it used to load (roles were EAGER
+// then, hence the fetch join). Both go through a bare EntityManager, so repository and
+// transaction overhead stay out of it and only the query and hydration differ. Run with
+// -prof gc for the allocation side
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshSessionLookupBenchmark {
+
+    private static final int SESSIONS = 256;
+
+    private AuthServer server;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private final String[] tokens = new String[SESSIONS];
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        server = AuthServer.start();
+        entityManagerFactory = server.bean(EntityManagerFactory.class);
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = server.signup("session-user-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public RefreshSession projection() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery(
+                            "SELECT new org.example.model.RefreshSession(t.tokenHash, t.expiryDate, u.userId, u.username) "
+                                    + "FROM RefreshToken t JOIN t.userInfo u WHERE t.tokenHash = :tokenHash",
+                            RefreshSession.class)
+                    .setParameter("tokenHash", TokenHasher.sha256(randomToken()))
+                    .getSingleResult();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public String entities() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            RefreshToken refreshToken = entityManager.createQuery(
+                            "SELECT t FROM RefreshToken t JOIN FETCH t.userInfo u LEFT JOIN FETCH u.roles "
+                                    + "WHERE t.tokenHash = :tokenHash", RefreshToken.class)
+                    .setParameter("tokenHash", TokenHasher.sha256(randomToken()))
+                    .getSingleResult();
+            return refreshToken.getUserInfo().getUsername();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private String randomToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(SESSIONS)];
+    }
+}
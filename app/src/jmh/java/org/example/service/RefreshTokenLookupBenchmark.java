@@ -0,0 +1,93 @@
+package org.example.service;
+
+import org.example.utils.TokenHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Refresh token lookup on H2 in MySQL mode: the legacy plaintext varchar column without an
+// index against the SHA-256 digest behind ux_tokens_token_hash. Hashing is inside the
+// measured call, as it is in RefreshTokenService. Table size via -p rows=10000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshTokenLookupBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private Connection connection;
+
+    private PreparedStatement byToken;
+
+    private PreparedStatement byHash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:lookup-" + rows + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE legacy_tokens (id INT PRIMARY KEY, token VARCHAR(255))");
+            statement.execute("CREATE TABLE tokens (id INT PRIMARY KEY, token_hash BINARY(32))");
+            statement.execute("INSERT INTO legacy_tokens SELECT X, 'token-' || X FROM SYSTEM_RANGE(1, " + rows + ")");
+            statement.execute("INSERT INTO tokens SELECT X, HASH('SHA-256', 'token-' || X) FROM SYSTEM_RANGE(1, " + rows + ")");
+            statement.execute("CREATE UNIQUE INDEX ux_tokens_token_hash ON tokens (token_hash)");
+        }
+        byToken = connection.prepareStatement("SELECT id FROM legacy_tokens WHERE token = ?");
+        byHash = connection.prepareStatement("SELECT id FROM tokens WHERE token_hash = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public int plaintextScan() throws SQLException {
+        byToken.setString(1, randomToken());
+        return firstId(byToken);
+    }
+
+    @Benchmark
+    public int hashedIndexProbe() throws SQLException {
+        byHash.setBytes(1, TokenHasher.sha256(randomToken()));
+        return firstId(byHash);
+    }
+
+    private String randomToken() {
+        return "token-" + ThreadLocalRandom.current().nextInt(1, rows + 1);
+    }
+
+    private static int firstId(PreparedStatement query) throws SQLException {
+        try (ResultSet result = query.executeQuery()) {
+            if (!result.next()) {
+                throw new IllegalStateException("token not found");
+            }
+            return result.getInt(1);
+        }
+    }
+}
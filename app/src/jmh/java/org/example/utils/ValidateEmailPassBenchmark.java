@@ -0,0 +1,90 @@
+package org.example.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Email and password checks of a valid signup: the String.matches version ValidateEmailPass
+// used to be (kept below as LegacyValidator) against the precompiled pattern, the single
+// password scan and the hash-set lookups it does now
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidateEmailPassBenchmark {
+
+    private static final String EMAIL = "someone@gmail.com";
+
+    private static final String PASSWORD = "Correct-Horse1!";
+
+    private ValidateEmailPass validator;
+
+    @Setup
+    public void setUp() {
+        validator = new ValidateEmailPass(
+                List.of("gmail", "yahoo", "outlook", "hotmail", "edu", "gov", "company", "university", "business"),
+                List.of("com", "org", "net", "edu", "gov", "mil", "co", "ac", "in", "uk", "us", "au", "ca", "de",
+                        "fr", "jp", "cn", "it", "nl", "ru"));
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return LegacyValidator.validateEmail(EMAIL) && LegacyValidator.validatePassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean current() {
+        return validator.validateEmail(EMAIL) && validator.validatePassword(PASSWORD);
+    }
+
+    //The checks as they were before patterns were precompiled, messages trimmed
+    private static final class LegacyValidator {
+
+        static boolean validateEmail(String email) {
+            if (email == null || email.length() < 10 || email.length() > 50) {
+                throw new IllegalArgumentException("Invalid email length");
+            }
+            String emailRegex = "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
+            if (!email.matches(emailRegex)) {
+                throw new IllegalArgumentException("Invalid email format");
+            }
+            String domainPart = email.substring(email.indexOf('@') + 1);
+            String[] parts = domainPart.split("\\.");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid domain");
+            }
+            List<String> validDomains = List.of(
+                    "gmail", "yahoo", "outlook", "hotmail", "edu", "gov", "company", "university", "business");
+            List<String> validTLDs = List.of(
+                    "com", "org", "net", "edu", "gov", "mil", "co", "ac", "in", "uk", "us", "au", "ca", "de",
+                    "fr", "jp", "cn", "it", "nl", "ru");
+            if (!validDomains.contains(parts[0]) || !validTLDs.contains(parts[1])) {
+                throw new IllegalArgumentException("Invalid domain");
+            }
+            return true;
+        }
+
+        static boolean validatePassword(String password) {
+            if (password == null || password.length() < 12
+                    || !password.matches(".*[a-z].*")
+                    || !password.matches(".*[A-Z].*")
+                    || !password.matches(".*\\d.*")
+                    || !password.matches(".*[@$!%*?&].*")) {
+                throw new IllegalArgumentException("Invalid password");
+            }
+            return true;
+        }
+    }
+}
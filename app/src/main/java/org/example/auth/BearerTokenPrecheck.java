@@ -0,0 +1,201 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Cheap structural check of a "Bearer <jws>" header, run before the token reaches jjwt so
+// garbage costs a few comparisons instead of Base64 + JSON + signature work and an exception.
+// It reads the header in place and allocates nothing: the JOSE header segment is
+// base64url-decoded on the fly and scanned for its "alg" value, which must be one the key
+// ring actually signs with (so "none" and algorithm-confusion tokens stop here too).
+// Anything that passes still gets fully verified by the parser.
+@Component
+public class BearerTokenPrecheck {
+
+    static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String METRIC = "auth.jwt.rejected";
+
+    //Our own headers are ~60 bytes of JSON, anything much bigger is not ours
+    private static final int MAX_HEADER_SEGMENT_CHARS = 512;
+
+    // base64url alphabet -> 6-bit value, -1 for anything else
+    private static final byte[] BASE64URL = new byte[128];
+
+    private static final byte[] ALG_NAME = {'"', 'a', 'l', 'g', '"'};
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    public enum Rejection {
+        EMPTY("empty"),
+        TOO_LONG("too_long"),
+        MALFORMED("malformed"),
+        BAD_ENCODING("bad_encoding"),
+        UNSUPPORTED_ALGORITHM("unsupported_algorithm"),
+        EXPIRED("expired"),
+        INVALID("invalid");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @Autowired
+    private JwtKeyProvider jwtKeyProvider;
+
+    private final int maxTokenLength;
+
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+
+    public BearerTokenPrecheck(@Value("${auth.jwt.max-token-length:4096}") int maxTokenLength,
+                               MeterRegistry meterRegistry) {
+        this.maxTokenLength = maxTokenLength;
+        for (Rejection rejection : Rejection.values()) {
+            rejections.put(rejection, Counter.builder(METRIC)
+                    .tag("reason", rejection.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    //authHeader must start with "Bearer "; returns null when the token is worth parsing
+    public Rejection check(String authHeader) {
+        int start = BEARER_PREFIX.length();
+        int end = authHeader.length();
+        if (end == start) {
+            return Rejection.EMPTY;
+        }
+        if (end - start > maxTokenLength) {
+            return Rejection.TOO_LONG;
+        }
+
+        // header.payload.signature, all three non-empty and base64url
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = start; i < end; i++) {
+            char c = authHeader.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return Rejection.MALFORMED;
+                }
+            } else if (c >= 128 || BASE64URL[c] < 0) {
+                return Rejection.BAD_ENCODING;
+            }
+        }
+        if (firstDot == start || secondDot < 0 || secondDot == firstDot + 1 || secondDot == end - 1) {
+            return Rejection.MALFORMED;
+        }
+        //Unpadded base64url never leaves a single character over
+        if ((firstDot - start) % 4 == 1 || (secondDot - firstDot - 1) % 4 == 1 || (end - secondDot - 1) % 4 == 1) {
+            return Rejection.BAD_ENCODING;
+        }
+        if (firstDot - start > MAX_HEADER_SEGMENT_CHARS) {
+            return Rejection.TOO_LONG;
+        }
+
+        long algorithm = readAlgorithm(authHeader, start, firstDot);
+        if (algorithm == 0 || !jwtKeyProvider.acceptsAlgorithm(algorithm)) {
+            return Rejection.UNSUPPORTED_ALGORITHM;
+        }
+        return null;
+    }
+
+    public void record(Rejection rejection) {
+        rejections.get(rejection).increment();
+    }
+
+    // Algorithm names are short ASCII ("HS256", "EdDSA"), so up to 8 of them pack into a long
+    // and can be compared without building a String
+    static long packAlgorithm(String algorithm) {
+        if (algorithm.length() > 8) {
+            return 0;
+        }
+        long packed = 0;
+        for (int i = 0; i < algorithm.length(); i++) {
+            packed = (packed << 8) | (algorithm.charAt(i) & 0xFF);
+        }
+        return packed;
+    }
+
+    // Decodes the header segment byte by byte and returns the packed "alg" value, 0 if it is
+    // missing or not a plain string. Escaped values are treated as missing, we never write them.
+    private static long readAlgorithm(String token, int from, int to) {
+        int bits = 0;
+        int bitCount = 0;
+        int state = 0; // 0: looking for "alg", 1: expecting ':', 2: expecting '"', 3: reading the value
+        int matched = 0;
+        long packed = 0;
+        int valueLength = 0;
+
+        for (int i = from; i < to; i++) {
+            bits = (bits << 6) | BASE64URL[token.charAt(i)];
+            bitCount += 6;
+            if (bitCount < 8) {
+                continue;
+            }
+            bitCount -= 8;
+            int b = (bits >> bitCount) & 0xFF;
+            bits &= (1 << bitCount) - 1;
+
+            switch (state) {
+                case 0 -> {
+                    if (b == ALG_NAME[matched]) {
+                        if (++matched == ALG_NAME.length) {
+                            state = 1;
+                        }
+                    } else {
+                        matched = b == '"' ? 1 : 0;
+                    }
+                }
+                case 1 -> {
+                    if (b == ':') {
+                        state = 2;
+                    } else if (!isJsonWhitespace(b)) {
+                        //"alg" was a value, not a name; keep looking
+                        state = 0;
+                        matched = b == '"' ? 1 : 0;
+                    }
+                }
+                case 2 -> {
+                    if (b == '"') {
+                        state = 3;
+                    } else if (!isJsonWhitespace(b)) {
+                        return 0;
+                    }
+                }
+                default -> {
+                    if (b == '"') {
+                        return packed;
+                    }
+                    if (b == '\\' || ++valueLength > 8) {
+                        return 0;
+                    }
+                    packed = (packed << 8) | b;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isJsonWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs encode/matches on a dedicated pool sized to the CPU count with a bounded queue, so a
+// burst of logins or signups can only ever occupy that many cores. The caller still waits for
+// the result, but once the queue is full new work is refused straight away with
+// PasswordHashingUnavailableException instead of piling up on request threads.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+
+    private final Timer hashTimer;
+
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.password_hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Hashing requests waiting for a free thread")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.password_hashing.wait")
+                .description("Time a hashing request spent queued")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("auth.password_hashing.duration")
+                .description("Time spent in encode/matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password_hashing.rejected")
+                .description("Hashing requests refused because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return runBounded(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return runBounded(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    //Only inspects the stored hash, cheap enough to stay on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T runBounded(Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingUnavailableException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException(retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,14 +1,23 @@
 package org.example.auth;
 
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.example.service.AccessTokenRevocationService;
+import org.example.service.CustomUserDetails;
 import org.example.service.JwtService;
+import org.example.service.RoleAuthorityCatalog;
 import org.example.service.UserDetailsServiceImpl;
+import org.example.service.ValidatedToken;
+import org.example.store.TokenStateStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,8 +25,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @AllArgsConstructor
@@ -25,33 +38,116 @@ import java.io.IOException;
 public class JwtAuthFilter extends OncePerRequestFilter
 {
 
+    static final String TIMER = "auth.jwt_filter.duration";
+
     @Autowired
     private final JwtService jwtService;
     @Autowired
     private final UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private final TokenStateStore tokenStateStore;
+    @Autowired
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    @Autowired
+    private final BearerTokenPrecheck bearerTokenPrecheck;
+    @Autowired
+    private final MeterRegistry meterRegistry;
+    @Autowired
+    private final RoleAuthorityCatalog roleAuthorityCatalog;
 
 
+    //Login, signup, refresh and probes never need a token looked at. Same path resolution as the
+    // rate limiter, so a context path or servlet mapping can't make a public path look protected
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PublicPaths.matches(RequestPaths.lookupPath(request));
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException, ServletException
     {
+        //Only this filter's own work is timed, not the rest of the chain
+        long start = System.nanoTime();
+        String outcome = authenticate(request, response);
+        long elapsed = System.nanoTime() - start;
+        try {
+            if (!"rejected".equals(outcome)) {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            //Recorded after the chain so the route pattern is known; raw paths would be unbounded
+            Timer.builder(TIMER)
+                    .tag("path", routePattern(request))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //The mapping that handled the request, e.g. "/auth/v1/logout"; UNKNOWN when none did
+    private static String routePattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+
+    //Returns "authenticated", "anonymous" or "rejected" (response already written)
+    private String authenticate(HttpServletRequest request, HttpServletResponse response) {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
-        if(authHeader != null && authHeader.startsWith("Bearer ")){
-            token = authHeader.substring(7);
-            username = jwtService.extractUsername(token);
+        ValidatedToken token = null;
+        if(authHeader != null && authHeader.startsWith(BearerTokenPrecheck.BEARER_PREFIX)){
+            BearerTokenPrecheck.Rejection rejection = bearerTokenPrecheck.check(authHeader);
+            if (rejection == null) {
+                try {
+                    token = jwtService.parseToken(authHeader.substring(BearerTokenPrecheck.BEARER_PREFIX.length()));
+                } catch (ExpiredJwtException e) {
+                    rejection = BearerTokenPrecheck.Rejection.EXPIRED;
+                } catch (JwtException | IllegalArgumentException e) {
+                    rejection = BearerTokenPrecheck.Rejection.INVALID;
+                }
+            }
+            if (rejection != null) {
+                reject(response, rejection);
+                return "rejected";
+            }
         }
 
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null){
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if(token != null && token.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !isRevoked(token)){
+            UserDetails userDetails = jwtService.isStateless() && token.hasIdentityClaims()
+                    ? userDetailsFromClaims(token)
+                    : userDetailsService.loadUserByUsername(token.getUsername());
             if(jwtService.validateToken(token, userDetails)){
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                return "authenticated";
             }
 
         }
-        filterChain.doFilter(request, response);
+        return "anonymous";
+    }
+
+    //A bad token is the client's problem, answer 401 rather than letting it surface as a 500
+    private void reject(HttpServletResponse response, BearerTokenPrecheck.Rejection rejection) {
+        bearerTokenPrecheck.record(rejection);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+    }
+
+    //A user-wide revocation (logout everywhere) rejects every token issued before that second.
+    // iat has whole-second precision, so a token issued in the same second is let through
+    private boolean isRevoked(ValidatedToken token) {
+        if (accessTokenRevocationService.isRevoked(token.getId())) {
+            return true;
+        }
+        String key = TokenStateStore.userRevocationKey(token.getUsername());
+        Instant revokedAt = tokenStateStore.findRevocations(List.of(key)).get(key);
+        return revokedAt != null && token.getIssuedAt().toInstant().isBefore(revokedAt);
+    }
+
+    private UserDetails userDetailsFromClaims(ValidatedToken token) {
+        return new CustomUserDetails(token.getUserId(), token.getUsername(),
+                token.getRoles().stream().map(roleAuthorityCatalog::byName).toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package org.example.auth;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import lombok.Getter;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+
+// One signing key with everything derived from it: the kid, the key that verifies it and,
+// for asymmetric keys, the public JWK we publish. All of it is immutable and safe to share
+// between request threads, so it is built once per key and reused.
+@Getter
+public final class JwtKeyMaterial {
+
+    private final String keyId;
+
+    private final SecureDigestAlgorithm<?, ?> algorithm;
+
+    //Null for a verify-only key, one kept only for the tokens it signed before a restart
+    private final Key signingKey;
+
+    private final Key verificationKey;
+
+    //Public half as a JWK, null for HMAC keys since a shared secret must never be published
+    private final JWK publicJwk;
+
+    private JwtKeyMaterial(String keyId, SecureDigestAlgorithm<?, ?> algorithm, Key signingKey,
+                           Key verificationKey, JWK publicJwk) {
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.publicJwk = publicJwk;
+    }
+
+    public static JwtKeyMaterial fromBase64Secret(String base64Secret) {
+        byte[] keyBytes = Decoders.BASE64.decode(base64Secret);
+        SecretKey key = Keys.hmacShaKeyFor(keyBytes);
+        //kid is derived from the secret so every instance sharing it agrees, without revealing it
+        String keyId = "hs256-" + Encoders.BASE64URL.encode(Arrays.copyOf(sha256(keyBytes), 12));
+        return new JwtKeyMaterial(keyId, Jwts.SIG.HS256, key, key, null);
+    }
+
+    //algorithmId is a JWA name: RS256, ES256, EdDSA, ...
+    public static JwtKeyMaterial fromKeyPair(PrivateKey privateKey, PublicKey publicKey, String algorithmId) {
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().forKey(algorithmId);
+        JWK publicJwk = toJwk(publicKey, algorithmId);
+        return new JwtKeyMaterial(publicJwk.getKeyID(), algorithm, privateKey, publicKey, publicJwk);
+    }
+
+    //A previous key loaded back from the key source: it verifies and is published, never signs
+    public static JwtKeyMaterial verifyOnly(PublicKey publicKey, String algorithmId) {
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().forKey(algorithmId);
+        JWK publicJwk = toJwk(publicKey, algorithmId);
+        return new JwtKeyMaterial(publicJwk.getKeyID(), algorithm, null, publicKey, publicJwk);
+    }
+
+    //JwtBuilder is mutable, so a new one is handed out per token but already bound to the cached key
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public JwtBuilder builder() {
+        if (signingKey == null) {
+            throw new IllegalStateException("JWT key " + keyId + " is verify-only");
+        }
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .signWith(signingKey, (SecureDigestAlgorithm) algorithm);
+    }
+
+    //kid is the RFC 7638 thumbprint, so it is stable for a key and needs no bookkeeping
+    private static JWK toJwk(PublicKey publicKey, String algorithmId) {
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithmId);
+        try {
+            return switch (publicKey) {
+                case RSAPublicKey rsa -> new RSAKey.Builder(rsa)
+                        .keyUse(KeyUse.SIGNATURE).algorithm(jwsAlgorithm).keyIDFromThumbprint().build();
+                case ECPublicKey ec -> new ECKey.Builder(Curve.forECParameterSpec(ec.getParams()), ec)
+                        .keyUse(KeyUse.SIGNATURE).algorithm(jwsAlgorithm).keyIDFromThumbprint().build();
+                case EdECPublicKey ed -> {
+                    //The X.509 encoding ends with the raw public key, which is what the JWK "x" holds
+                    Curve curve = Curve.parse(ed.getParams().getName());
+                    int rawLength = Curve.Ed25519.equals(curve) ? 32 : 57;
+                    byte[] encoded = ed.getEncoded();
+                    byte[] raw = Arrays.copyOfRange(encoded, encoded.length - rawLength, encoded.length);
+                    yield new OctetKeyPair.Builder(curve, Base64URL.encode(raw))
+                            .keyUse(KeyUse.SIGNATURE).algorithm(jwsAlgorithm).keyIDFromThumbprint().build();
+                }
+                default -> throw new IllegalArgumentException("Unsupported signing key type " + publicKey.getAlgorithm());
+            };
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not compute the key thumbprint", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available on this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package org.example.auth;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.service.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Key ring for access tokens. Exactly one key signs; every key that may still have live
+// tokens out there verifies, looked up by the kid in the token header. Rotating (a changed
+// keystore/secret file, or POST auth/v1/admin/keys/rotate) first publishes the new key as
+// verify-only and promotes it to signing once one JWKS max-age has passed, so every client
+// that caches the JWK Set knows the key before it sees a token signed with it. The old key
+// then stays verifiable until the longest access token it could have signed has expired,
+// so a rotation never logs anybody out.
+//
+// With auth.jwt.keystore.location set, tokens are signed with the keystore's private key
+// (RS256/ES256/EdDSA) and the public keys are published as a JWK Set. Without it the HMAC
+// secret (auth.jwt.secret-file, else auth.jwt.secret) is used.
+//
+// The in-memory ring is lost on a restart, so previous keys are read back from the key source
+// too: every other entry of the keystore, or the secrets in auth.jwt.previous-secrets-file.
+// They verify for as long as they are there; drop them once the token lifetime has passed.
+@Slf4j
+@Component
+public class JwtKeyProvider {
+
+    @Value("${auth.jwt.secret:" + JwtService.JWT_SECRET_KEY + "}")
+    private String secret;
+
+    @Value("${auth.jwt.secret-file:}")
+    private String secretFile;
+
+    //One base64 secret per line, keys that no longer sign but may still have live tokens
+    @Value("${auth.jwt.previous-secrets-file:}")
+    private String previousSecretsFile;
+
+    @Value("${auth.jwt.keystore.location:}")
+    private String keystoreLocation;
+
+    @Value("${auth.jwt.keystore.type:PKCS12}")
+    private String keystoreType;
+
+    @Value("${auth.jwt.keystore.password:}")
+    private String keystorePassword;
+
+    @Value("${auth.jwt.keystore.alias:}")
+    private String keyAlias;
+
+    @Value("${auth.jwt.algorithm:RS256}")
+    private String algorithm;
+
+    //Extra time a retired key stays verifiable past the token lifetime, covers clock skew
+    @Value("${auth.jwt.key-ring.retirement-grace-seconds:300}")
+    private long retirementGraceSeconds;
+
+    //How long JwksController lets clients cache the key set, a new key waits this long before signing
+    @Value("${auth.jwt.jwks.max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+
+    //kid -> key, read lock-free on every request; only rotation and retirement write to it
+    private final Map<String, RingKey> keyRing = new ConcurrentHashMap<>();
+
+    private final JwtParser parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<Key>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    return verificationKey(header.getKeyId());
+                }
+            })
+            .build();
+
+    private volatile JwtKeyMaterial keyMaterial;
+
+    //Published and verifying, but not signing yet. Key and promotion time are swapped as one
+    // snapshot, so a reader never sees one without the other
+    private volatile PendingKey pendingKey;
+
+    //Previous keys read from the key source on the last reload
+    private volatile Set<String> previousKeyIds = Set.of();
+
+    //Tokens issued before kids were added carry none, they were all signed with auth.jwt.secret
+    private volatile String legacyKeyId;
+
+    private volatile JwkSetDocument jwkSet;
+
+    //Packed ids of the algorithms the ring verifies, see BearerTokenPrecheck
+    private volatile long[] algorithms = new long[0];
+
+    private volatile FileTime watchedFileModified;
+
+    @PostConstruct
+    public void init() {
+        //Kept in the ring for one token lifetime, whatever signs from now on
+        if (!secret.isBlank()) {
+            JwtKeyMaterial legacy = JwtKeyMaterial.fromBase64Secret(secret);
+            legacyKeyId = legacy.getKeyId();
+            keyRing.put(legacyKeyId, new RingKey(legacy, retireAt()));
+        }
+        reload();
+    }
+
+    // Re-reads the configured key source and promotes it if it is a different key
+    public void reload() {
+        Path watched = watchedFile();
+        FileTime modified = watched == null ? null : lastModified(watched);
+        if (!keystoreLocation.isBlank()) {
+            reloadKeystore();
+        } else if (!secretFile.isBlank()) {
+            try {
+                installPreviousKeys(readPreviousSecrets());
+                rotate(Files.readString(Path.of(secretFile)).trim());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read the JWT secret from " + secretFile, e);
+            }
+        } else {
+            rotate(secret);
+        }
+        //Only recorded once the load succeeded, so a failed reload is retried on the next check
+        watchedFileModified = modified;
+    }
+
+    public void rotate(String base64Secret) {
+        install(JwtKeyMaterial.fromBase64Secret(base64Secret));
+    }
+
+    public void reloadKeystore() {
+        char[] password = keystorePassword.toCharArray();
+        try (InputStream in = Files.newInputStream(Path.of(keystoreLocation))) {
+            KeyStore keyStore = KeyStore.getInstance(keystoreType);
+            keyStore.load(in, password);
+            PrivateKey privateKey = (PrivateKey) keyStore.getKey(keyAlias, password);
+            if (privateKey == null) {
+                throw new IllegalStateException("No private key under alias '" + keyAlias + "' in " + keystoreLocation);
+            }
+            PublicKey publicKey = keyStore.getCertificate(keyAlias).getPublicKey();
+            //Every other entry is a key that signed before, its public half is all we need
+            List<JwtKeyMaterial> previous = new ArrayList<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (!alias.equals(keyAlias) && certificate != null) {
+                    PublicKey previousKey = certificate.getPublicKey();
+                    previous.add(JwtKeyMaterial.verifyOnly(previousKey, algorithmFor(previousKey)));
+                }
+            }
+            installPreviousKeys(previous);
+            install(JwtKeyMaterial.fromKeyPair(privateKey, publicKey, algorithm));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load the JWT signing key from " + keystoreLocation, e);
+        }
+    }
+
+    private List<JwtKeyMaterial> readPreviousSecrets() throws IOException {
+        if (previousSecretsFile.isBlank()) {
+            return List.of();
+        }
+        return Files.readAllLines(Path.of(previousSecretsFile)).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .map(JwtKeyMaterial::fromBase64Secret)
+                .toList();
+    }
+
+    //A previous key may be of another type than the configured algorithm, e.g. after moving from RSA to EC
+    private String algorithmFor(PublicKey key) {
+        return switch (key) {
+            case RSAPublicKey rsa -> algorithm.startsWith("RS") || algorithm.startsWith("PS") ? algorithm : "RS256";
+            case ECPublicKey ec -> switch (ec.getParams().getCurve().getField().getFieldSize()) {
+                case 384 -> "ES384";
+                case 521 -> "ES512";
+                default -> "ES256";
+            };
+            case EdECPublicKey ed -> "EdDSA";
+            default -> throw new IllegalStateException("Unsupported JWT key type " + key.getAlgorithm());
+        };
+    }
+
+    // Adds keys from the source that verify only. One that was dropped from the source since the
+    // last reload stops verifying, unless it signs, is pending, or is retiring on its own schedule.
+    synchronized void installPreviousKeys(List<JwtKeyMaterial> previous) {
+        Set<String> ids = new HashSet<>();
+        for (JwtKeyMaterial key : previous) {
+            ids.add(key.getKeyId());
+            //A key the source still lists outlives its own retirement schedule
+            keyRing.compute(key.getKeyId(), (id, existing) ->
+                    existing != null && existing.retireAt() == null ? existing : new RingKey(key, null));
+        }
+        JwtKeyMaterial current = keyMaterial;
+        PendingKey pending = pendingKey;
+        for (String keyId : previousKeyIds) {
+            boolean inUse = (current != null && current.getKeyId().equals(keyId))
+                    || (pending != null && pending.material().getKeyId().equals(keyId));
+            if (!ids.contains(keyId) && !inUse) {
+                keyRing.computeIfPresent(keyId, (id, key) -> key.retireAt() == null ? null : key);
+            }
+        }
+        previousKeyIds = Set.copyOf(ids);
+        publishKeyRing();
+    }
+
+    // Writers are serialized so two rotations can't both retire the same signing key;
+    // readers never take this lock.
+    synchronized void install(JwtKeyMaterial next) {
+        JwtKeyMaterial current = keyMaterial;
+        JwtKeyMaterial pending = pendingKey == null ? null : pendingKey.material();
+        if (pending != null && pending.getKeyId().equals(next.getKeyId())) {
+            return;
+        }
+        //A key that never signed has no tokens to verify, it can go straight away
+        if (pending != null) {
+            keyRing.remove(pending.getKeyId());
+            pendingKey = null;
+            log.info("JWT key {} withdrawn before it signed anything", pending.getKeyId());
+        }
+        if (current != null && current.getKeyId().equals(next.getKeyId())) {
+            if (pending != null) {
+                publishKeyRing();
+            }
+            return;
+        }
+
+        keyRing.put(next.getKeyId(), new RingKey(next, null));
+        if (current == null) {
+            //Nobody can hold tokens from a key ring that didn't exist yet
+            this.keyMaterial = next;
+        } else {
+            this.pendingKey = new PendingKey(next, Instant.now().plusSeconds(jwksMaxAgeSeconds));
+            log.info("JWT key {} published, signs from {}", next.getKeyId(), pendingKey.promoteAt());
+        }
+        publishKeyRing();
+        promoteNextKey();
+    }
+
+    private synchronized void promoteNextKey() {
+        PendingKey pending = pendingKey;
+        if (pending == null || Instant.now().isBefore(pending.promoteAt())) {
+            return;
+        }
+        JwtKeyMaterial next = pending.material();
+        JwtKeyMaterial previous = keyMaterial;
+        Instant retireAt = retireAt();
+        keyRing.put(previous.getKeyId(), new RingKey(previous, retireAt));
+        this.keyMaterial = next;
+        this.pendingKey = null;
+        log.info("JWT signing key rotated from {} to {}, old key verifies until {}",
+                previous.getKeyId(), next.getKeyId(), retireAt);
+    }
+
+    // Picks up a replaced key file, promotes a published key once clients have had time to
+    // fetch it, and drops keys whose tokens have all expired
+    @Scheduled(fixedDelayString = "${auth.jwt.key-ring.check-interval-ms:30000}")
+    public void checkKeyRing() {
+        Path watched = watchedFile();
+        if (watched != null) {
+            FileTime modified = lastModified(watched);
+            if (modified != null && !modified.equals(watchedFileModified)) {
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    //Keep signing with the current key, a half-written file is picked up on the next check
+                    log.warn("JWT key reload from {} failed: {}", watched, e.getMessage());
+                }
+            }
+        }
+        promoteNextKey();
+        retireExpiredKeys();
+    }
+
+    //When a key that stops signing now has seen its last token expire
+    private Instant retireAt() {
+        return Instant.now()
+                .plusMillis(JwtService.ACCESS_TOKEN_VALIDITY_MILLIS)
+                .plusSeconds(retirementGraceSeconds);
+    }
+
+    private synchronized void retireExpiredKeys() {
+        Instant now = Instant.now();
+        if (keyRing.values().removeIf(key -> key.isRetiredAt(now))) {
+            publishKeyRing();
+        }
+    }
+
+    private void publishKeyRing() {
+        List<JWK> publicKeys = new ArrayList<>();
+        long[] packedAlgorithms = new long[keyRing.size()];
+        int i = 0;
+        for (RingKey key : keyRing.values()) {
+            if (key.material().getPublicJwk() != null) {
+                publicKeys.add(key.material().getPublicJwk());
+            }
+            if (i < packedAlgorithms.length) {
+                packedAlgorithms[i++] = BearerTokenPrecheck.packAlgorithm(key.material().getAlgorithm().getId());
+            }
+        }
+        this.jwkSet = JwkSetDocument.of(new JWKSet(publicKeys));
+        this.algorithms = Arrays.copyOf(packedAlgorithms, i);
+    }
+
+    boolean acceptsAlgorithm(long packedAlgorithm) {
+        for (long algorithm : algorithms) {
+            if (algorithm == packedAlgorithm) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Key verificationKey(String keyId) {
+        //Tokens issued before kids were added were signed with the legacy HMAC secret
+        if (keyId == null && legacyKeyId == null) {
+            throw new SignatureException("Token has no kid and no legacy key is configured");
+        }
+        RingKey key = keyRing.get(keyId == null ? legacyKeyId : keyId);
+        if (key == null || key.isRetiredAt(Instant.now())) {
+            throw new SignatureException("Unknown or retired signing key " + keyId);
+        }
+        return key.material().getVerificationKey();
+    }
+
+    private Path watchedFile() {
+        if (!keystoreLocation.isBlank()) {
+            return Path.of(keystoreLocation);
+        }
+        return secretFile.isBlank() ? null : Path.of(secretFile);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public JwtKeyMaterial current() {
+        return keyMaterial;
+    }
+
+    //The key waiting to be promoted and when it will sign, null when there is none
+    public PendingKey pendingKey() {
+        return pendingKey;
+    }
+
+    //Verifies tokens signed by any key still in the ring
+    public JwtParser parser() {
+        return parser;
+    }
+
+    public JwkSetDocument jwkSet() {
+        return jwkSet;
+    }
+
+    public record PendingKey(JwtKeyMaterial material, Instant promoteAt) {
+    }
+
+    //retireAt is null while the key is the one signing
+    private record RingKey(JwtKeyMaterial material, Instant retireAt) {
+
+        boolean isRetiredAt(Instant now) {
+            return retireAt != null && now.isAfter(retireAt);
+        }
+    }
+
+    // The serialized public JWK Set and its ETag, computed once per key change rather than per request
+    public record JwkSetDocument(String json, String etag) {
+
+        static JwkSetDocument of(JWKSet jwkSet) {
+            String json = jwkSet.toString(true);
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+                return new JwkSetDocument(json, "\"" + Encoders.BASE64URL.encode(Arrays.copyOf(digest, 16)) + "\"");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("SHA-256 is not available on this JVM", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.store.RateLimit;
+import org.example.store.TokenStateStore;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Token-bucket limits per client IP and per username on the public auth endpoints, checked
+// before any authentication work so a credential-stuffing burst is turned away for the cost
+// of a bucket check instead of a bcrypt verification. Limits come from auth.rate-limit.endpoints,
+// the buckets themselves live in the configured TokenStateStore.
+@Component
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String METRIC = "auth.rate_limit.requests";
+
+    private final RateLimitProperties properties;
+
+    private final TokenStateStore tokenStateStore;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LimitedEndpoint> endpointsByPath = new HashMap<>();
+
+    public LoginRateLimitFilter(RateLimitProperties properties, TokenStateStore tokenStateStore,
+                                ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokenStateStore = tokenStateStore;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        properties.getEndpoints().forEach((name, endpoint) -> endpointsByPath.put(endpoint.getPath(),
+                new LimitedEndpoint(name, endpoint.getPerIp(), endpoint.getPerUsername())));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !endpointsByPath.containsKey(RequestPaths.lookupPath(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LimitedEndpoint endpoint = endpointsByPath.get(RequestPaths.lookupPath(request));
+        HttpServletRequest limitedRequest = request;
+        List<RateLimit> limits = new ArrayList<>(2);
+        List<String> keyTypes = new ArrayList<>(2);
+
+        if (endpoint.perIp() != null) {
+            limits.add(toRateLimit(endpoint.name() + ":ip:" + request.getRemoteAddr(), endpoint.perIp()));
+            keyTypes.add("ip");
+        }
+
+        if (endpoint.perUsername() != null) {
+            byte[] body = request.getInputStream().readNBytes(properties.getMaxBodyBytes() + 1);
+            if (body.length > properties.getMaxBodyBytes()) {
+                response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                return;
+            }
+            String username = extractUsername(body);
+            if (username != null) {
+                limits.add(toRateLimit(endpoint.name() + ":user:" + username, endpoint.perUsername()));
+                keyTypes.add("username");
+            }
+            limitedRequest = new CachedBodyHttpServletRequest(request, body);
+        }
+
+        //Every bucket for this request is checked in one call to the store
+        long[] waits = limits.isEmpty() ? new long[0] : tokenStateStore.tryAcquire(limits);
+        for (int i = 0; i < waits.length; i++) {
+            if (waits[i] > 0) {
+                reject(response, endpoint, keyTypes.get(i), waits[i]);
+                return;
+            }
+        }
+
+        meterRegistry.counter(METRIC, "endpoint", endpoint.name(), "outcome", "admitted").increment();
+        filterChain.doFilter(limitedRequest, response);
+    }
+
+    private RateLimit toRateLimit(String key, RateLimitProperties.Limit limit) {
+        return new RateLimit(key, limit.getCapacity(), limit.getPeriod());
+    }
+
+    //Lower-cased so "Alice" and "alice" share a bucket, MySQL compares usernames case-insensitively
+    private String extractUsername(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).path("username");
+            return username.isTextual() ? username.asText().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException ex) {
+            return null; // malformed JSON is left for the controller to reject
+        }
+    }
+
+    private void reject(HttpServletResponse response, LimitedEndpoint endpoint, String key, long waitNanos)
+            throws IOException {
+        meterRegistry.counter(METRIC, "endpoint", endpoint.name(), "outcome", "rejected", "key", key).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getWriter().write("Too many requests. Please retry in " + retryAfterSeconds + " seconds");
+    }
+
+    private record LimitedEndpoint(String name, RateLimitProperties.Limit perIp, RateLimitProperties.Limit perUsername) {
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.auth;
+
+import lombok.Getter;
+
+// Thrown when the password hashing pool is saturated. Mapped to 503 with a Retry-After header.
+@Getter
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(long retryAfterSeconds) {
+        super("Password hashing capacity exhausted, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.auth;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Paths that are reachable without a token. SecurityConfig permits them and JwtAuthFilter
+// skips them, both from this one list so the two can't drift apart.
+public final class PublicPaths {
+
+    static final String[] AUTH_ENDPOINTS = {
+            "/auth/v1/login", "/auth/v1/refreshToken", "/auth/v1/signup", "/.well-known/jwks.json"
+    };
+
+    //Load balancer and orchestrator probes, they never carry a token
+    static final String[] PROBES = {
+            "/actuator/health", "/actuator/health/**", "/actuator/info"
+    };
+
+    static final String[] ALL = Stream.concat(Arrays.stream(AUTH_ENDPOINTS), Arrays.stream(PROBES))
+            .toArray(String[]::new);
+
+    private static final Set<String> EXACT = Set.of(AUTH_ENDPOINTS);
+
+    private static final List<PathPattern> PATTERNS = Arrays.stream(PROBES)
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
+    private PublicPaths() {
+    }
+
+    public static boolean matches(String path) {
+        if (EXACT.contains(path)) {
+            return true;
+        }
+        if (!path.startsWith("/actuator/")) {
+            return false;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : PATTERNS) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
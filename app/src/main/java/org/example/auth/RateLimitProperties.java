@@ -0,0 +1,49 @@
+package org.example.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    //Upper bound on buckets held in memory, least recently used keys go first
+    private long maxTrackedKeys = 100_000;
+
+    //A key that sees no requests for this long is dropped, it starts again with a full bucket
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    private int maxBodyBytes = 16 * 1024;
+
+    //Keyed by a short endpoint name, e.g. auth.rate-limit.endpoints.login.path=/auth/v1/login
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+
+        private String path;
+
+        private Limit perIp;
+
+        //Needs the username from the JSON body, only set it on endpoints that take one
+        private Limit perUsername;
+    }
+
+    @Data
+    public static class Limit {
+
+        //Burst size: requests allowed back to back from a full bucket
+        private int capacity;
+
+        //Time for a completely empty bucket to refill
+        private Duration period;
+    }
+}
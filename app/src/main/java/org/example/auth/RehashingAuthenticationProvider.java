@@ -0,0 +1,28 @@
+package org.example.auth;
+
+import org.example.service.PasswordRehashService;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+// DaoAuthenticationProvider can upgrade stored hashes itself, but it does so on the request
+// thread, paying a second full hash before the login returns. This hands the upgrade to
+// PasswordRehashService instead and returns straight away.
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final PasswordRehashService passwordRehashService;
+
+    public RehashingAuthenticationProvider(PasswordRehashService passwordRehashService) {
+        this.passwordRehashService = passwordRehashService;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+        if (getPasswordEncoder().upgradeEncoding(user.getPassword())) {
+            passwordRehashService.rehashAsync(user.getUsername(), user.getPassword(),
+                    authentication.getCredentials().toString());
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
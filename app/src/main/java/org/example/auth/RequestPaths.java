@@ -0,0 +1,19 @@
+package org.example.auth;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+// The path filters match endpoints against, resolved the way handler mappings see it: the
+// request URI without the context path and, when DispatcherServlet is mapped under a prefix
+// (spring.mvc.servlet.path), without that prefix either. getServletPath() alone is not enough,
+// it is empty under MockMvc and is the prefix itself under a prefix mapping.
+final class RequestPaths {
+
+    private RequestPaths() {
+    }
+
+    //Decoded, with ;params and duplicate slashes removed, so an encoded variant can't slip past
+    static String lookupPath(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+    }
+}
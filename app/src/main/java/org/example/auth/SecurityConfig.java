@@ -3,14 +3,17 @@ import lombok.Builder;
 import lombok.Data;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.example.repository.UserRepository;
+import org.example.service.PasswordRehashService;
+import org.example.service.RoleAuthorityCatalog;
+import org.example.service.UserDetailsCache;
 import org.example.service.UserDetailsServiceImpl;
 import org.example.utils.ValidateEmailPass;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -19,6 +22,7 @@ import org.springframework.security.config.annotation.web.configurers.CorsConfig
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -33,32 +37,58 @@ public class SecurityConfig {
     @Autowired
     private final UserDetailsServiceImpl userDetailsServiceImpl;
 
+    @Autowired
+    private final PasswordRehashService passwordRehashService;
+
 
     @Bean
     public UserDetailsService userDetailsService(UserRepository userRepository,
-                                                 PasswordEncoder passwordEncoder,ValidateEmailPass validateEmailPass) {
-        return new UserDetailsServiceImpl(userRepository, passwordEncoder,validateEmailPass);
+                                                 PasswordEncoder passwordEncoder,ValidateEmailPass validateEmailPass,
+                                                 UserDetailsCache userDetailsCache,
+                                                 RoleAuthorityCatalog roleAuthorityCatalog) {
+        return new UserDetailsServiceImpl(userRepository, passwordEncoder,validateEmailPass, userDetailsCache,
+                roleAuthorityCatalog);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter,
+                                                   LoginRateLimitFilter loginRateLimitFilter) throws Exception {
 
         return http
                 .csrf(AbstractHttpConfigurer::disable).cors(CorsConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/v1/login", "/auth/v1/refreshToken", "/auth/v1/signup").permitAll()
+                        .requestMatchers(PublicPaths.ALL).permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .httpBasic(Customizer.withDefaults())
+                //Bearer tokens only: Basic credentials would reach bcrypt on every protected route
+                // without passing the login rate limits
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new BearerTokenAuthenticationEntryPoint()))
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(loginRateLimitFilter, JwtAuthFilter.class)
                 .authenticationProvider(authenticationProvider())
                 .build();
     }
 
+    //The rate limiter only belongs in the security chain above, not also as a plain servlet filter
+    @Bean
+    public FilterRegistrationBean<LoginRateLimitFilter> loginRateLimitFilterRegistration(LoginRateLimitFilter filter) {
+        FilterRegistrationBean<LoginRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    //Same for the JWT filter, otherwise Boot registers the @Component a second time for every request
+    @Bean
+    public FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(JwtAuthFilter filter) {
+        FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        DaoAuthenticationProvider authenticationProvider = new RehashingAuthenticationProvider(passwordRehashService);
         authenticationProvider.setUserDetailsService(userDetailsServiceImpl);
         authenticationProvider.setPasswordEncoder(passwordEncoder);
         return authenticationProvider;
@@ -1,18 +1,83 @@
 package org.example.auth;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
 
+
+@Slf4j
 @Configuration
 public class UserConfig {
 
+    private static final String BCRYPT = "bcrypt";
+
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    @Value("${auth.password.target-hash-ms:250}")
+    private long targetHashMillis;
+
+    @Value("${auth.password.bcrypt.min-strength:10}")
+    private int minStrength;
+
+    @Value("${auth.password.bcrypt.max-strength:14}")
+    private int maxStrength;
+
+    //0 means one hashing thread per available core
+    @Value("${auth.password.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${auth.password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${auth.password.hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    // New hashes are written as {bcrypt} with a cost calibrated for this machine. Hashes
+    // with another id, an older cost, or no prefix at all (everything stored before this
+    // encoder) still match, and upgradeEncoding flags them for a rehash on the next login.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int strength = calibrateBcryptStrength();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(strength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(strength));
+
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(passwordEncoder, threads, hashingQueueCapacity, retryAfterSeconds,
+                meterRegistry);
+    }
+
+    //Each extra bcrypt round doubles the cost, so one timing at minStrength is enough to extrapolate
+    private int calibrateBcryptStrength() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration-warmup");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            probe.encode("calibration-" + i);
+        }
+        double millisAtMin = (System.nanoTime() - start) / 1_000_000.0 / CALIBRATION_ROUNDS;
+
+        int strength = minStrength;
+        while (strength < maxStrength && millisAtMin * (1L << (strength + 1 - minStrength)) <= targetHashMillis) {
+            strength++;
+        }
+        log.info("bcrypt strength {} selected ({} ms at strength {}, budget {} ms)",
+                strength, Math.round(millisAtMin), minStrength, targetHashMillis);
+        return strength;
     }
 
 }
@@ -0,0 +1,77 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// Active only when request handling runs on virtual threads (spring.threads.virtual.enabled).
+// A virtual thread that blocks inside a synchronized block pins its carrier thread, and enough
+// of those stall the whole server. This refuses to start with a JDBC driver that still
+// synchronizes around socket I/O, and counts pinning events seen at runtime so a regression
+// in the driver or our own code shows up in auth.virtual_threads.pinned.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadMonitor {
+
+    private static final int MIN_MYSQL_DRIVER_MAJOR = 9;
+
+    private final Counter pinnedThreads;
+
+    private RecordingStream recordingStream;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${auth.virtual-threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMillis;
+
+    public VirtualThreadMonitor(MeterRegistry meterRegistry) {
+        this.pinnedThreads = Counter.builder("auth.virtual_threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        checkDriverVersion();
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(pinnedThresholdMillis));
+        recordingStream.onEvent("jdk.VirtualThreadPinned", event -> pinnedThreads.increment());
+        recordingStream.startAsync();
+    }
+
+    //Connector/J before 9.x guards its socket reads with synchronized and pins on every query.
+    // Asked of the driver the pool actually loaded, a constant would be inlined at compile time
+    private void checkDriverVersion() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (metaData.getDriverName().startsWith("MySQL Connector")
+                    && metaData.getDriverMajorVersion() < MIN_MYSQL_DRIVER_MAJOR) {
+                throw new IllegalStateException("Virtual threads need mysql-connector-j " + MIN_MYSQL_DRIVER_MAJOR
+                        + ".x or newer, found " + metaData.getDriverVersion());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the JDBC driver version", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
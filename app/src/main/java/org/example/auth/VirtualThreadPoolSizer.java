@@ -0,0 +1,35 @@
+package org.example.auth;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Connection pool limits for virtual-thread mode only. With platform threads Tomcat's thread
+// pool already caps concurrent queries and the spring.datasource.hikari defaults apply; with
+// virtual threads every request can reach the pool at once, so it is sized explicitly and
+// waits for a connection are kept short.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPoolSizer implements BeanPostProcessor {
+
+    private final int maximumPoolSize;
+
+    private final long connectionTimeoutMillis;
+
+    public VirtualThreadPoolSizer(@Value("${auth.virtual-threads.pool.maximum-size:20}") int maximumPoolSize,
+                                  @Value("${auth.virtual-threads.pool.connection-timeout-ms:3000}") long connectionTimeoutMillis) {
+        this.maximumPoolSize = maximumPoolSize;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            dataSource.setConnectionTimeout(connectionTimeoutMillis);
+        }
+        return bean;
+    }
+}
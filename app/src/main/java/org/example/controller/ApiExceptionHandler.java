@@ -0,0 +1,19 @@
+package org.example.controller;
+
+import org.example.auth.PasswordHashingUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<String> handleHashingUnavailable(PasswordHashingUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body("Server is busy. Please retry in " + ex.getRetryAfterSeconds() + " seconds");
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.controller;
 
 import lombok.AllArgsConstructor;
+import org.example.auth.PasswordHashingUnavailableException;
 import org.example.entities.RefreshToken;
+import org.example.entities.UserInfo;
 import org.example.model.UserInfoDto;
 import org.example.response.JwtResponseDTO;
 import org.example.service.JwtService;
@@ -13,6 +15,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @AllArgsConstructor
 @RestController
 public class AuthController {
@@ -32,34 +36,32 @@ public class AuthController {
     @PostMapping("auth/v1/signup")
     public ResponseEntity SignUp(@RequestBody UserInfoDto userInfoDto) {
 
+        // Reject malformed input before any bcrypt or database work is spent on it
+        try {
+            validateEmailPass.validateSignup(userInfoDto);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
         try {
-            // To check if Password and Email are valid
-            Boolean isEmailValid = validateEmailPass.validateEmail(userInfoDto.getEmail());
-            Boolean isPasswordValid =
-                    validateEmailPass.validatePassword(userInfoDto.getPassword());
-            Boolean isSignUped = userDetailsServiceImpl.signupUser(userInfoDto);
+            UserInfo userInfo = userDetailsServiceImpl.signupUser(userInfoDto);
 
-            if (!isSignUped) {
+            if (userInfo == null) {
                 return new ResponseEntity<>("Users with username : \"" + userInfoDto.getUsername() +
                         "\" already Exist.Try Signing up with different userNames",
                         HttpStatus.BAD_REQUEST);
             }
 
-            if (!isPasswordValid) {
-                return new ResponseEntity<>("", HttpStatus.BAD_REQUEST);
-            }
-            if (!isEmailValid) {
-                return new ResponseEntity<>("",
-                        HttpStatus.BAD_REQUEST);
-            }
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(userInfoDto.getUsername());
-            String jwtToken = jwtService.GenerateToken(userInfoDto.getUsername());
+            RefreshToken refreshToken = refreshTokenService.createRefreshTokenForNewUser(userInfo);
+            String jwtToken = jwtService.GenerateToken(userInfo.getUsername(), userInfo.getUserId(), List.of());
             return new ResponseEntity<>(
                     JwtResponseDTO
                             .builder()
                             .accessToken(jwtToken)
                             .token(refreshToken.getToken())
                             .build(), HttpStatus.OK);
+        } catch (PasswordHashingUnavailableException ex) {
+            throw ex; // answered with 503 + Retry-After by ApiExceptionHandler
         } catch (Exception ex) {
             return new ResponseEntity<>(" AuthController.Signup: Exception in AuthController While creating account " + ex.getMessage(),
                     HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,44 @@
+package org.example.controller;
+
+import org.example.auth.JwtKeyProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+// Public keys for verifying our access tokens, looked up by the kid in each token's header.
+// The document only changes with the signing key, so clients may cache it and revalidate
+// cheaply with If-None-Match.
+@RestController
+public class JwksController {
+
+    @Autowired
+    private JwtKeyProvider jwtKeyProvider;
+
+    @Value("${auth.jwt.jwks.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        JwtKeyProvider.JwkSetDocument jwkSet = jwtKeyProvider.jwkSet();
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        //A 304 renews the client's cached copy, so it needs the same max-age as the 200
+        if (request.checkNotModified(jwkSet.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .eTag(jwkSet.etag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag(jwkSet.etag())
+                .body(jwkSet.json());
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.controller;
+
+import org.example.auth.JwtKeyProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class KeyRotationController {
+
+    @Autowired
+    private JwtKeyProvider jwtKeyProvider;
+
+    //Reloads the configured keystore or secret file now instead of waiting for the file check.
+    // A new key is published right away and starts signing once the JWKS max-age has passed;
+    // tokens signed with the previous key keep verifying until they expire
+    @PostMapping("auth/v1/admin/keys/rotate")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Map<String, String>> rotate() {
+        jwtKeyProvider.reload();
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("kid", jwtKeyProvider.current().getKeyId());
+        //One snapshot, a promotion landing in between can't split the key from its time
+        JwtKeyProvider.PendingKey next = jwtKeyProvider.pendingKey();
+        if (next != null) {
+            keys.put("nextKid", next.material().getKeyId());
+            keys.put("nextSignsFrom", next.promoteAt().toString());
+        }
+        return ResponseEntity.ok(keys);
+    }
+}
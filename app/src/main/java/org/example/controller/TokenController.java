@@ -1,21 +1,31 @@
 package org.example.controller;
 
 import org.example.entities.RefreshToken;
+import org.example.model.RefreshSession;
 import org.example.request.AuthRequestDTO;
 import org.example.request.RefreshTokenRequestDTO;
 import org.example.response.JwtResponseDTO;
+import org.example.service.AccessTokenRevocationService;
+import org.example.service.CustomUserDetails;
 import org.example.service.JwtService;
 import org.example.service.RefreshTokenService;
+import org.example.service.ValidatedToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 public class TokenController {
 
@@ -28,13 +38,18 @@ public class TokenController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private AccessTokenRevocationService accessTokenRevocationService;
+
     @PostMapping("auth/v1/login")
     public ResponseEntity AuthenticateAndGetToken(@RequestBody AuthRequestDTO authRequestDTO) {
         Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequestDTO.getUsername(), authRequestDTO.getPassword()));
         if (authentication.isAuthenticated()) {
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(authRequestDTO.getUsername());
+            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+            RefreshToken refreshToken = refreshTokenService.createRefreshTokenForUserId(userDetails.getUserId());
             return new ResponseEntity<>(JwtResponseDTO.builder()
-                    .accessToken(jwtService.GenerateToken(authRequestDTO.getUsername()))
+                    .accessToken(jwtService.GenerateToken(userDetails.getUsername(),
+                            userDetails.getUserId(), userDetails.getAuthorities()))
                     .token(refreshToken.getToken())
                     .build(), HttpStatus.OK);
 
@@ -46,15 +61,36 @@ public class TokenController {
 
     @PostMapping("auth/v1/refreshToken")
     public JwtResponseDTO refreshToken(@RequestBody RefreshTokenRequestDTO refreshTokenRequestDTO) {
-        return refreshTokenService.findAllByToken(refreshTokenRequestDTO.getToken())
+        RefreshSession session = refreshTokenService.findSession(refreshTokenRequestDTO.getToken())
                 .map(refreshTokenService::verifyExpiration)
-                .map(RefreshToken::getUserInfo)
-                .map(userInfo -> {
-                    String accessToken = jwtService.GenerateToken(userInfo.getUsername());
-                    return JwtResponseDTO.builder()
-                            .accessToken(accessToken)
-                            .token(refreshTokenRequestDTO.getToken()).build();
-                }).orElseThrow(() -> new RuntimeException("Refresh Token is not in DB..!!"));
+                .orElseThrow(() -> new RuntimeException("Refresh Token is not in DB..!!"));
+        String rotatedToken = refreshTokenService.rotate(session)
+                .orElseThrow(() -> new RuntimeException("Refresh Token was already used..!!"));
+        //Roles only end up in the token in stateless mode, otherwise they are not worth a query
+        List<GrantedAuthority> authorities = jwtService.isStateless()
+                ? refreshTokenService.findAuthorities(session.userId())
+                : List.of();
+        return JwtResponseDTO.builder()
+                .accessToken(jwtService.GenerateToken(session.username(), session.userId(), authorities))
+                .token(rotatedToken).build();
+    }
+
+    //Revokes only the access token this request was made with
+    @PostMapping("auth/v1/logout")
+    public ResponseEntity logout(@RequestHeader("Authorization") String authHeader) {
+        ValidatedToken token = jwtService.parseToken(authHeader.substring(7));
+        if (token.getId() == null) {
+            return new ResponseEntity<>("Token has no id and cannot be revoked individually, use logoutAll",
+                    HttpStatus.BAD_REQUEST);
+        }
+        accessTokenRevocationService.revoke(token.getId(), token.getExpiration().toInstant());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping("auth/v1/logoutAll")
+    public ResponseEntity logoutAll(@AuthenticationPrincipal UserDetails userDetails) {
+        refreshTokenService.revokeAllSessions(userDetails.getUsername());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
 }
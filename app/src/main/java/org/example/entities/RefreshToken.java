@@ -17,7 +17,11 @@ import java.time.Instant;
 @NoArgsConstructor
 @Builder
 @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
-@Table(name = "tokens")
+@Table(name = "tokens", indexes = {
+        @Index(name = "ux_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "ix_tokens_expiry_date", columnList = "expiry_date"),
+        @Index(name = "ix_tokens_user_id", columnList = "user_id")
+})
 public class RefreshToken {
 
     @Id
@@ -25,13 +29,20 @@ public class RefreshToken {
     private int id;
 
 
-    //  @Column(unique = true) //unique refresh tokens for each user not recommended
+    //SHA-256 of the token handed to the client, the plaintext itself is never stored.
+    //Nullable only for rows written before hashing, RefreshTokenHashBackfill fills those in.
+    @Column(name = "token_hash", columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
+
+    //Plaintext token, only known on the instance created for (or presented by) the client
+    @Transient
     private String token;
 
     private Instant expiryDate;
 
-    @OneToOne
-    @JoinColumn(name = "id", referencedColumnName = "user_id")
+    //One row per active session, a user can hold up to auth.refresh-token.max-sessions-per-user of them
+    @ManyToOne
+    @JoinColumn(name = "user_id", referencedColumnName = "user_id")
     private UserInfo userInfo;
 
 
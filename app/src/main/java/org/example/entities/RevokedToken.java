@@ -0,0 +1,38 @@
+package org.example.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "ux_revoked_tokens_jti", columnList = "jti", unique = true),
+        @Index(name = "ix_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "ix_revoked_tokens_revoked_at", columnList = "revoked_at, id")
+})
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jti", length = 64, nullable = false)
+    private String jti;
+
+    //When the revocation was made, the watermark other pods poll by. Nullable for rows written
+    // before the column existed, the periodic rebuild still loads those
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+
+    //Expiry of the revoked access token, the row is useless after that and gets purged
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -3,6 +3,7 @@ package org.example.entities;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import java.util.HashSet;
@@ -13,7 +14,9 @@ import java.util.Set;
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "ux_users_username", columnNames = "username")
+})
 public class UserInfo {
 
     @Id
@@ -24,13 +27,17 @@ public class UserInfo {
 
     private String password;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    //Lazy: most lookups only need the user row, the login lookup reads role names itself
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "users_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id")
     )
 
+    //Kept out of toString/equals/hashCode so they never trigger a lazy load
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<UserRole> roles = new HashSet<>();
 
     }
@@ -0,0 +1,8 @@
+package org.example.model;
+
+import java.time.Instant;
+
+// What the refresh endpoint needs from a refresh token row, read in one query
+// without loading the RefreshToken or UserInfo entities.
+public record RefreshSession(byte[] tokenHash, Instant expiryDate, String userId, String username) {
+}
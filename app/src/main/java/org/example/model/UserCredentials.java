@@ -0,0 +1,6 @@
+package org.example.model;
+
+// One row of the login lookup: the user's credentials and the id of one of their roles (null
+// when the user has none). A user with n roles comes back as n rows of the same credentials.
+public record UserCredentials(String userId, String username, String password, Long roleId) {
+}
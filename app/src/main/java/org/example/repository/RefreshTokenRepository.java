@@ -1,14 +1,60 @@
 package org.example.repository;
 
 import org.example.entities.RefreshToken;
+import org.example.model.RefreshSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends CrudRepository<RefreshToken, Integer>
 {
-    Optional<RefreshToken> findByToken(String token);
+    //Expiry and the user's id and name in one probe of ux_tokens_token_hash plus the users primary key,
+    // a constructor expression so neither RefreshToken nor UserInfo (and its roles) is hydrated
+    @Query("SELECT new org.example.model.RefreshSession(t.tokenHash, t.expiryDate, u.userId, u.username) "
+            + "FROM RefreshToken t JOIN t.userInfo u WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshSession> findSessionByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    //Deletes at most `limit` expired rows walking the expiry_date index, each call is its own short transaction
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM tokens WHERE expiry_date < :now ORDER BY expiry_date LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    long countByUserInfoUserId(String userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM tokens WHERE user_id IN (SELECT user_id FROM users WHERE username = :username)",
+            nativeQuery = true)
+    int deleteAllForUsername(@Param("username") String username);
+
+    //Tokens are issued with a fixed lifetime, so the earliest expiry is the oldest session
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.userInfo.userId = :userId ORDER BY t.expiryDate, t.id")
+    List<Integer> findOldestIds(@Param("userId") String userId, Pageable limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") List<Integer> ids);
+
+    //Compare-and-set on the old digest: of two requests racing with the same token only one updates a row
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.tokenHash = :newHash WHERE t.tokenHash = :oldHash AND t.expiryDate > :now")
+    int rotate(@Param("oldHash") byte[] oldHash, @Param("newHash") byte[] newHash, @Param("now") Instant now);
 
 }
@@ -0,0 +1,33 @@
+package org.example.repository;
+
+import org.example.entities.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends CrudRepository<RevokedToken, Long>
+{
+    boolean existsByJti(String jti);
+
+    //Every revocation that still matters, a page at a time in id order
+    List<RevokedToken> findTop1000ByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long id, Instant now);
+
+    //Next page of revocations made after (revokedAt, id) that still matter
+    @Query("SELECT r FROM RevokedToken r WHERE (r.revokedAt > :revokedAt OR (r.revokedAt = :revokedAt AND r.id > :id))"
+            + " AND r.expiresAt > :now ORDER BY r.revokedAt, r.id")
+    List<RevokedToken> findRevokedAfter(@Param("revokedAt") Instant revokedAt, @Param("id") Long id,
+                                        @Param("now") Instant now, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,13 +1,48 @@
 package org.example.repository;
 
 import org.example.entities.UserInfo;
+import org.example.model.UserCredentials;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface UserRepository extends CrudRepository<UserInfo, Long>
 {
     public UserInfo findByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    //Row lock on the user, held until the caller's transaction ends; serializes per-user session bookkeeping
+    @Query(value = "SELECT user_id FROM users WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    String lockById(@Param("userId") String userId);
+
+    //Everything loadUserByUsername needs in one statement, without hydrating UserInfo or UserRole
+    @Query("SELECT new org.example.model.UserCredentials(u.userId, u.username, u.password, r.roleId) "
+            + "FROM UserInfo u LEFT JOIN u.roles r WHERE u.username = :username")
+    List<UserCredentials> findCredentialsByUsername(@Param("username") String username);
+
+    //Role ids only, resolved to authorities through RoleAuthorityCatalog
+    @Query("SELECT r.roleId FROM UserInfo u JOIN u.roles r WHERE u.userId = :userId")
+    List<Long> findRoleIdsByUserId(@Param("userId") String userId);
+
+    //Plain INSERT: a taken username (ux_users_username) fails with DataIntegrityViolationException,
+    // and so does any other bad row, instead of being downgraded to a warning
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO users (user_id, username, password) VALUES (:userId, :username, :password)",
+            nativeQuery = true)
+    int insert(@Param("userId") String userId, @Param("username") String username,
+               @Param("password") String password);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserInfo u SET u.password = :newPassword WHERE u.username = :username AND u.password = :oldPassword")
+    int updatePassword(@Param("username") String username, @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.example.repository;
+
+import org.example.entities.UserRole;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserRoleRepository extends CrudRepository<UserRole, Long>
+{
+}
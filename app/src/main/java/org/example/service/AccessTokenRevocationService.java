@@ -0,0 +1,131 @@
+package org.example.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.PostConstruct;
+import org.example.entities.RevokedToken;
+import org.example.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revoked access tokens, identified by their jti claim. The full list lives in the
+// revoked_tokens table; each pod keeps only a Bloom filter of it in memory. A token that is
+// not in the filter is certainly not revoked, which is the answer for nearly every request
+// and costs a few hashes with no I/O. Only a filter hit is confirmed against the table.
+// The filter picks up other pods' revocations by polling for rows revoked since the newest one
+// it has seen, minus an overlap window. A row stamped before that one but committed after the
+// poll (a slow transaction, or a pod whose clock runs behind) still falls in the next poll's
+// window; reading a row twice is harmless. The filter is rebuilt from scratch periodically so
+// expired revocations stop occupying it.
+@Service
+public class AccessTokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${auth.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    //Longer than any revoking transaction plus the clock skew between pods
+    @Value("${auth.revocation.poll-overlap-ms:60000}")
+    private long pollOverlapMillis;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile BloomFilter<CharSequence> revokedIds;
+
+    //revokedAt of the newest revocation loaded so far
+    private Instant watermark = Instant.EPOCH;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && revokedIds.mightContain(jti) && revokedTokenRepository.existsByJti(jti);
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        revokedTokenRepository.save(RevokedToken.builder().jti(jti).revokedAt(Instant.now()).expiresAt(expiresAt).build());
+        revokedIds.put(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        reloadLock.lock();
+        try {
+            watermark = loadRevokedSince(revokedIds, watermark.minusMillis(pollOverlapMillis));
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${auth.revocation.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${auth.revocation.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        reloadLock.lock();
+        try {
+            revokedTokenRepository.deleteExpired(Instant.now());
+            BloomFilter<CharSequence> rebuilt = BloomFilter.create(
+                    Funnels.stringFunnel(StandardCharsets.UTF_8), expectedRevocations, FALSE_POSITIVE_RATE);
+            watermark = loadAll(rebuilt);
+            revokedIds = rebuilt;
+        } finally {
+            reloadLock.unlock();
+        }
+        //Revocations made on this pod while the new filter was being filled are in the table, pick them up
+        refresh();
+    }
+
+    //Returns the newest revokedAt loaded, the next poll starts an overlap window before it
+    private Instant loadAll(BloomFilter<CharSequence> filter) {
+        Instant now = Instant.now();
+        Instant newest = Instant.EPOCH;
+        long afterId = 0L;
+        List<RevokedToken> page;
+        do {
+            page = revokedTokenRepository.findTop1000ByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(afterId, now);
+            for (RevokedToken revokedToken : page) {
+                filter.put(revokedToken.getJti());
+                afterId = revokedToken.getId();
+                newest = newer(newest, revokedToken.getRevokedAt());
+            }
+        } while (!page.isEmpty());
+        return newest;
+    }
+
+    private Instant loadRevokedSince(BloomFilter<CharSequence> filter, Instant since) {
+        Instant now = Instant.now();
+        Instant newest = watermark;
+        Instant afterRevokedAt = since;
+        long afterId = 0L;
+        List<RevokedToken> page;
+        do {
+            page = revokedTokenRepository.findRevokedAfter(afterRevokedAt, afterId, now, PageRequest.of(0, PAGE_SIZE));
+            for (RevokedToken revokedToken : page) {
+                filter.put(revokedToken.getJti());
+                afterRevokedAt = revokedToken.getRevokedAt();
+                afterId = revokedToken.getId();
+                newest = newer(newest, afterRevokedAt);
+            }
+        } while (!page.isEmpty());
+        return newest;
+    }
+
+    private static Instant newer(Instant a, Instant b) {
+        return b != null && b.isAfter(a) ? b : a;
+    }
+}
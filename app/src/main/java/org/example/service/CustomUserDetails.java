@@ -1,32 +1,36 @@
 package org.example.service;
 
-import org.example.entities.UserInfo;
-import org.example.entities.UserRole;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-public class CustomUserDetails extends UserInfo
-        implements UserDetails
+// The authenticated principal. Immutable and detached from the UserInfo entity: just the
+// user's id, name, password hash and the shared authority instances from RoleAuthorityCatalog.
+public final class CustomUserDetails implements UserDetails
 {
 
-    private String username;
-    private String password;
-    Collection<? extends GrantedAuthority> authorities;
+    private final String userId;
+    private final String username;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
 
-    public CustomUserDetails(UserInfo userInfo) {
-        this.username = userInfo.getUsername();
-        this.password= userInfo.getPassword();
-        List<GrantedAuthority> auths = new ArrayList<>();
+    //Built from verified token claims, there is no password since the user never went through the database
+    public CustomUserDetails(String userId, String username, Collection<? extends GrantedAuthority> authorities) {
+        this(userId, username, null, authorities);
+    }
+
+    public CustomUserDetails(String userId, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.username = username;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+    }
 
-        for(UserRole role : userInfo.getRoles()){
-            auths.add(new SimpleGrantedAuthority(role.getName().toUpperCase()));
-        }
-        this.authorities = auths;
+    public String getUserId() {
+        return userId;
     }
 
     @Override
@@ -63,4 +67,4 @@ public class CustomUserDetails extends UserInfo
     public boolean isEnabled() {
         return true;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,18 @@
 package org.example.service;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import org.example.auth.JwtKeyProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -19,6 +20,24 @@ public class JwtService {
 
   public static final String JWT_SECRET_KEY = "357638792F423F4428472B4B6250655368566D597133743677397A2443264629";
 
+    public static final long ACCESS_TOKEN_VALIDITY_MILLIS = 1000L * 60 * 60 * 24; // 24 hours
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+
+    @Autowired
+    private JwtKeyProvider jwtKeyProvider;
+
+    // When enabled the access token carries the user id and roles, and JwtAuthFilter
+    // authenticates from the claims alone instead of loading the user from the database.
+    // Role changes then only take effect once the user's current token expires.
+    @Value("${auth.jwt.stateless:false}")
+    private boolean stateless;
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);     //getSubject is the username
     }
@@ -34,12 +53,9 @@ public class JwtService {
 
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtKeyProvider.parser()
+                .parseSignedClaims(token)
+                .getPayload();
     }
 
     private Boolean isTokenExpired(String token) {
@@ -51,24 +67,39 @@ public class JwtService {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
 
+    //Verifies the signature and decodes the claims once, the result is reused for the rest of the request
+    public ValidatedToken parseToken(String token) {
+        return new ValidatedToken(token, extractAllClaims(token));
+    }
+
+    public Boolean validateToken(ValidatedToken token, UserDetails userDetails) {
+        return (token.getUsername().equals(userDetails.getUsername()) && !token.isExpired());
+    }
+
 
     public String GenerateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
     }
 
-
-    private String createToken(Map<String, Object> claims, String username) {
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24 hours
-                .signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+    public String GenerateToken(String username, String userId, Collection<? extends GrantedAuthority> authorities) {
+        Map<String, Object> claims = new HashMap<>();
+        if (stateless) {
+            claims.put(USER_ID_CLAIM, userId);
+            claims.put(ROLES_CLAIM, authorities.stream().map(GrantedAuthority::getAuthority).toList());
+        }
+        return createToken(claims, username);
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(JWT_SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+
+    private String createToken(Map<String, Object> claims, String username) {
+        return jwtKeyProvider.current()
+                .builder()
+                .claims(claims)
+                .id(UUID.randomUUID().toString()) // jti, lets a single token be revoked
+                .subject(username)
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + ACCESS_TOKEN_VALIDITY_MILLIS))
+                .compact();
     }
 }
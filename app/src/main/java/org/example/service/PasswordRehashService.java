@@ -0,0 +1,64 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Re-encodes passwords whose stored hash is outdated (legacy format or lower cost) after
+// a successful login. The work runs on its own small pool so the login response never
+// waits for a second bcrypt. When the queue is full the rehash is dropped; the user gets
+// another chance on their next login.
+@Slf4j
+@Service
+public class PasswordRehashService {
+
+    private final UserRepository userRepository;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final UserDetailsCache userDetailsCache;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordRehashService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                 UserDetailsCache userDetailsCache,
+                                 @Value("${auth.password.rehash.threads:1}") int threads,
+                                 @Value("${auth.password.rehash.queue-capacity:100}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-rehash-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public void rehashAsync(String username, String currentHash, String rawPassword) {
+        executor.execute(() -> rehash(username, currentHash, rawPassword));
+    }
+
+    private void rehash(String username, String currentHash, String rawPassword) {
+        try {
+            String upgradedHash = passwordEncoder.encode(rawPassword);
+            //Only replaces the hash that was verified, a password changed in the meantime is left alone
+            if (userRepository.updatePassword(username, currentHash, upgradedHash) == 1) {
+                userDetailsCache.invalidate(username);
+            }
+        } catch (RuntimeException ex) {
+            //No username in the message, the stored hash stays valid and the next login retries
+            log.warn("Password rehash failed: {}", ex.toString());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Group commit for refresh-token inserts (auth.refresh-token.group-commit.enabled). Logins
+// hand their row to a bounded queue and wait; one writer thread collects whatever arrives
+// within the linger time, up to the batch size, and stores it with a single multi-row
+// INSERT. Under load that turns one round trip and one commit per login into one per batch.
+// The entity path can't do this itself: IDENTITY ids switch off Hibernate's JDBC batching.
+// The batch's users are row-locked in the same transaction and trimmed back to
+// auth.refresh-token.max-sessions-per-user afterwards, the same cap logins without group
+// commit enforce.
+// When the queue is full the caller gets false back and saves the row itself; after shutdown,
+// or when its row isn't stored within the wait time, the caller gets an exception.
+@Slf4j
+@Component
+public class RefreshTokenBatchWriter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO tokens (token_hash, user_id, expiry_date) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxSessionsPerUser;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long lingerNanos;
+
+    private final long waitMillis;
+
+    private final BlockingQueue<PendingInsert> queue;
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter timeouts;
+
+    //Held shared around every offer and exclusively to stop accepting, so no row can be queued
+    // after shutdown has started and then miss the writer's final drain
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+    private boolean accepting;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    public RefreshTokenBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${auth.refresh-token.max-sessions-per-user:5}") int maxSessionsPerUser,
+                                   @Value("${auth.refresh-token.group-commit.enabled:false}") boolean enabled,
+                                   @Value("${auth.refresh-token.group-commit.batch-size:64}") int batchSize,
+                                   @Value("${auth.refresh-token.group-commit.linger-ms:5}") long lingerMillis,
+                                   @Value("${auth.refresh-token.group-commit.queue-capacity:4096}") int queueCapacity,
+                                   @Value("${auth.refresh-token.group-commit.wait-ms:2000}") long waitMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.waitMillis = waitMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("auth.refresh_tokens.insert_batch_size")
+                .description("Refresh tokens written per INSERT by the group-commit writer")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("auth.refresh_tokens.insert_timeouts")
+                .description("Refresh tokens withdrawn because the group-commit writer didn't store them in time")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        accepting = true;
+        writer = new Thread(this::run, "refresh-token-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //Blocks until the batch holding this row is committed. False when the queue is full, the
+    // caller should then write the row itself. Throws once the writer is shut down, and when
+    // the row wasn't picked up within auth.refresh-token.group-commit.wait-ms; the row is
+    // withdrawn then, so a token the caller never received is never stored either.
+    public boolean insert(byte[] tokenHash, String userId, Instant expiryDate) {
+        PendingInsert pending = new PendingInsert(tokenHash, userId, expiryDate,
+                new AtomicBoolean(), new CompletableFuture<>());
+        lifecycle.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new IllegalStateException("Refresh token writer is shut down");
+            }
+            if (!queue.offer(pending)) {
+                return false;
+            }
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+
+        try {
+            try {
+                pending.done().get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.claimed().compareAndSet(false, true)) {
+                    timeouts.increment();
+                    throw new IllegalStateException("Refresh token not stored within " + waitMillis + " ms", e);
+                }
+                //Already part of an INSERT in flight, its outcome is the answer
+                pending.done().get();
+            }
+            return true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not store refresh token", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing refresh token", e);
+        }
+    }
+
+    private void run() {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                claim(first, batch);
+                //Linger briefly so logins arriving together share the round trip
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    PendingInsert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    claim(next, batch);
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    //Rows whose caller already gave up are dropped here
+    private static void claim(PendingInsert pending, List<PendingInsert> batch) {
+        if (pending.claimed().compareAndSet(false, true)) {
+            batch.add(pending);
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * 10).append(INSERT_PREFIX);
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        List<String> userIds = batch.stream().map(PendingInsert::userId).distinct().sorted().toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lockUsers(userIds);
+                //Bound in UTC like Hibernate binds Instant, not in the JVM's default zone
+                Calendar utc = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+                jdbcTemplate.update(sql.toString(), ps -> {
+                    int index = 1;
+                    for (PendingInsert pending : batch) {
+                        ps.setBytes(index++, pending.tokenHash());
+                        ps.setString(index++, pending.userId());
+                        ps.setTimestamp(index++, Timestamp.from(pending.expiryDate()), utc);
+                    }
+                });
+                for (String userId : userIds) {
+                    trimSessions(userId);
+                }
+            });
+            batchSizes.record(batch.size());
+            for (PendingInsert pending : batch) {
+                pending.done().complete(null);
+            }
+        } catch (RuntimeException ex) {
+            //A random 256-bit token can't collide, so a failure here fails the whole batch alike
+            log.error("Group-commit insert of {} refresh tokens failed", batch.size(), ex);
+            for (PendingInsert pending : batch) {
+                pending.done().completeExceptionally(ex);
+            }
+        }
+    }
+
+    //Sorted ids, so two writers (one per pod) always lock in the same order and can't deadlock
+    private void lockUsers(List<String> userIds) {
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        jdbcTemplate.queryForList("SELECT user_id FROM users WHERE user_id IN (" + placeholders
+                + ") ORDER BY user_id FOR UPDATE", String.class, userIds.toArray());
+    }
+
+    //Keeps the user's newest sessions, the just-inserted ones included
+    private void trimSessions(String userId) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM tokens WHERE user_id = ? ORDER BY expiry_date DESC, id DESC", Integer.class, userId);
+        if (ids.size() <= maxSessionsPerUser) {
+            return;
+        }
+        List<Integer> evicted = ids.subList(maxSessionsPerUser, ids.size());
+        String placeholders = String.join(", ", Collections.nCopies(evicted.size(), "?"));
+        jdbcTemplate.update("DELETE FROM tokens WHERE id IN (" + placeholders + ")", evicted.toArray());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        lifecycle.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        //No interrupt, that could abort an INSERT in flight; the writer drains the queue and
+        // notices within one poll
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        //Whatever the writer didn't get to in time fails now instead of waiting out its caller
+        PendingInsert left;
+        while ((left = queue.poll()) != null) {
+            if (left.claimed().compareAndSet(false, true)) {
+                left.done().completeExceptionally(new IllegalStateException("Shut down before the refresh token was stored"));
+            }
+        }
+    }
+
+    //claimed is set by whoever gets to the row first: the writer to store it, or the caller to withdraw it
+    private record PendingInsert(byte[] tokenHash, String userId, Instant expiryDate,
+                                 AtomicBoolean claimed, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.utils.TokenHasher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// One-off migration for rows created before refresh tokens were hashed. Those rows still
+// carry the plaintext in the legacy `token` column, which is no longer mapped on the entity.
+// They also predate the user_id column: the old mapping joined users.user_id on the token's
+// own id, so the owner is carried over from there. Each batch writes the digest and the owner
+// and clears the plaintext, so the job is safe to rerun and becomes a no-op once every row
+// has been converted. Rows whose owner cannot be resolved could never be refreshed and are
+// deleted, those users log in again.
+@Slf4j
+@Component
+public class RefreshTokenHashBackfill {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${auth.refresh-token.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.refresh-token.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        //Fresh schemas never had the plaintext column, nothing to migrate there
+        if (!enabled || !hasLegacyTokenColumn()) {
+            return;
+        }
+
+        int converted = 0;
+        int orphaned = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(
+                    "SELECT id, token, user_id FROM tokens WHERE token_hash IS NULL AND token IS NOT NULL LIMIT ?",
+                    batchSize);
+            Set<String> legacyOwners = legacyOwners(rows);
+
+            List<Map<String, Object>> owned = new ArrayList<>();
+            List<Object> orphans = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                String userId = (String) row.get("user_id");
+                String legacyOwner = String.valueOf(row.get("id"));
+                if (userId == null && legacyOwners.contains(legacyOwner)) {
+                    row.put("user_id", legacyOwner);
+                }
+                if (row.get("user_id") != null) {
+                    owned.add(row);
+                } else {
+                    orphans.add(row.get("id"));
+                }
+            }
+
+            if (!owned.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE tokens SET token_hash = ?, user_id = ?, token = NULL WHERE id = ?",
+                        owned, owned.size(), (ps, row) -> {
+                            ps.setBytes(1, TokenHasher.sha256((String) row.get("token")));
+                            ps.setString(2, (String) row.get("user_id"));
+                            ps.setObject(3, row.get("id"));
+                        });
+                converted += owned.size();
+            }
+            if (!orphans.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM tokens WHERE id = ?",
+                        orphans, orphans.size(), (ps, id) -> ps.setObject(1, id));
+                orphaned += orphans.size();
+            }
+        } while (rows.size() == batchSize);
+
+        if (converted > 0 || orphaned > 0) {
+            log.info("Refresh token hash backfill hashed {} legacy refresh tokens, deleted {} without an owner",
+                    converted, orphaned);
+        }
+    }
+
+    //Users the old id-based join pointed at, for the rows in this batch that have no user_id yet
+    private Set<String> legacyOwners(List<Map<String, Object>> rows) {
+        List<String> ids = rows.stream()
+                .filter(row -> row.get("user_id") == null)
+                .map(row -> String.valueOf(row.get("id")))
+                .toList();
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM users WHERE user_id IN (" + placeholders + ")", String.class, ids.toArray()));
+    }
+
+    private boolean hasLegacyTokenColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upper = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(),
+                    upper ? "TOKENS" : "tokens", upper ? "TOKEN" : "token")) {
+                return columns.next();
+            }
+        }));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Removes expired refresh tokens in the background. Rows are deleted in small batches,
+// each in its own transaction with a pause in between, so the purge never holds locks on
+// `tokens` long enough to stall logins. A run stops after maxBatchesPerRun and the next
+// scheduled run picks up where it left off. The reaper runs on its own thread: the pauses
+// between batches would otherwise hold up the shared @Scheduled thread, and with it the
+// key-ring and revocation refreshes.
+@Slf4j
+@Component
+public class RefreshTokenReaper {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final Counter purgedTokens;
+
+    private final Timer purgeTimer;
+
+    private ScheduledExecutorService executor;
+
+    @Value("${auth.refresh-token.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.refresh-token.reaper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${auth.refresh-token.reaper.pause-ms:50}")
+    private long pauseMillis;
+
+    @Value("${auth.refresh-token.reaper.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${auth.refresh-token.reaper.initial-delay-ms:60000}")
+    private long initialDelayMillis;
+
+    @Value("${auth.refresh-token.reaper.interval-ms:300000}")
+    private long intervalMillis;
+
+    public RefreshTokenReaper(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.purgedTokens = Counter.builder("auth.refresh_tokens.purged")
+                .description("Expired refresh tokens deleted by the reaper")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("auth.refresh_tokens.purge.duration")
+                .description("Time spent per reaper run")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("refresh-token-reaper-"));
+        executor.scheduleWithFixedDelay(this::purgeExpiredTokens, initialDelayMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void purgeExpiredTokens() {
+        try {
+            purgeTimer.record(this::purge);
+        } catch (RuntimeException e) {
+            //An exception would cancel the schedule, the next run simply tries again
+            log.warn("Refresh token purge failed: {}", e.toString());
+        }
+    }
+
+    private void purge() {
+        Instant now = Instant.now();
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = refreshTokenRepository.deleteExpiredBatch(now, batchSize);
+            purgedTokens.increment(deleted);
+            if (deleted < batchSize) {
+                return;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    //Interrupts a pause, a batch in flight finishes its own transaction first
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
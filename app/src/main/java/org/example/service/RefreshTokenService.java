@@ -1,15 +1,28 @@
 package org.example.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.example.entities.RefreshToken;
 import org.example.entities.UserInfo;
+import org.example.model.RefreshSession;
 import org.example.repository.RefreshTokenRepository;
 import org.example.repository.UserRepository;
+import org.example.store.TokenStateStore;
+import org.example.utils.TokenGenerator;
+import org.example.utils.TokenHasher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class RefreshTokenService {
@@ -20,29 +33,124 @@ public class RefreshTokenService {
     @Autowired
     UserRepository userRepository;
 
-    public RefreshToken createRefreshToken(String username) {
-        UserInfo userInfoExtracted = userRepository.findByUsername(username);
-        RefreshToken refreshToken = RefreshToken.builder()
+    @Autowired
+    TokenStateStore tokenStateStore;
+
+    @Autowired
+    RoleAuthorityCatalog roleAuthorityCatalog;
+
+    @Autowired
+    RefreshTokenBatchWriter refreshTokenBatchWriter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${auth.refresh-token.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    //The token row only needs the user's id, so a reference stands in for the UserInfo entity
+    // and no user row is read at all
+    public RefreshToken createRefreshTokenForUserId(String userId) {
+        RefreshToken refreshToken = newRefreshToken(entityManager.getReference(UserInfo.class, userId));
+        //The group-commit writer enforces the session cap itself, in the transaction that stores the batch
+        if (storeInBatch(refreshToken, userId)) {
+            return refreshToken;
+        }
+        //Count, evict and insert under a lock on the user row, so concurrent logins of one user
+        // can't each see room under the cap
+        return transactionTemplate.execute(status -> {
+            userRepository.lockById(userId);
+            evictOldestSessions(userId);
+            return refreshTokenRepository.save(refreshToken);
+        });
+    }
+
+    //For a user that was just inserted: there are no sessions to evict, and the token row only
+    // needs the user's id, so a reference is used instead of loading the row back
+    public RefreshToken createRefreshTokenForNewUser(UserInfo newUser) {
+        RefreshToken refreshToken = newRefreshToken(entityManager.getReference(UserInfo.class, newUser.getUserId()));
+        return storeInBatch(refreshToken, newUser.getUserId()) ? refreshToken : refreshTokenRepository.save(refreshToken);
+    }
+
+    private RefreshToken newRefreshToken(UserInfo userInfoExtracted) {
+        String token = newToken();
+        return RefreshToken.builder()
                 .userInfo(userInfoExtracted)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(Instant.now().plusMillis(1000 * 60 * 60 * 24 * 30)) // 30 days
+                .token(token)
+                .tokenHash(TokenHasher.sha256(token))
+                .expiryDate(Instant.now().plusMillis(1000L * 60 * 60 * 24 * 30)) // 30 days
                 .build();
-        return refreshTokenRepository.save(refreshToken);
     }
 
-    //It does not checks for duplicates Tokens .If multiple colums have same refresh tokens
-    // then it checks all of them and then returns the tokens so matched.
-    public Optional<RefreshToken> findAllByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+    //Group commit shares one INSERT between concurrent logins; the row has no id then, callers only need the token.
+    // False when the writer is off or its queue is full, the caller saves the row itself
+    private boolean storeInBatch(RefreshToken refreshToken, String userId) {
+        return refreshTokenBatchWriter.isEnabled() && refreshTokenBatchWriter.insert(refreshToken.getTokenHash(),
+                userId, refreshToken.getExpiryDate());
+    }
+
+    //Keeps at most maxSessionsPerUser live tokens per user, making room for the one about to be created.
+    // Must run under the user's row lock
+    private void evictOldestSessions(String userId) {
+        long activeSessions = refreshTokenRepository.countByUserInfoUserId(userId);
+        if (activeSessions >= maxSessionsPerUser) {
+            int excess = (int) (activeSessions - maxSessionsPerUser + 1);
+            refreshTokenRepository.deleteByIds(refreshTokenRepository.findOldestIds(userId, PageRequest.of(0, excess)));
+        }
+    }
+
+    //Replaces the presented token with a fresh one in a single UPDATE, keeping the session's expiry.
+    // Empty when the token was already rotated (or expired) by a concurrent request.
+    public Optional<String> rotate(RefreshSession session) {
+        String token = newToken();
+        int updated = refreshTokenRepository.rotate(session.tokenHash(), TokenHasher.sha256(token), Instant.now());
+        return updated == 1 ? Optional.of(token) : Optional.empty();
+    }
+
+    //Logs the user out everywhere: access tokens already handed out are revoked in the shared
+    // store until the last of them would have expired anyway, and refresh tokens are deleted.
+    // The revocation goes first so a full store fails the request before anything changed.
+    // Truncated to whole seconds like a token's iat, so a login later in the same second is
+    // not caught by it.
+    public void revokeAllSessions(String username) {
+        tokenStateStore.revoke(TokenStateStore.userRevocationKey(username), Instant.now().truncatedTo(ChronoUnit.SECONDS),
+                Duration.ofMillis(JwtService.ACCESS_TOKEN_VALIDITY_MILLIS));
+        refreshTokenRepository.deleteAllForUsername(username);
+    }
+
+    private String newToken() {
+        return TokenGenerator.newToken();
+    }
+
+    //Looks the token up by its SHA-256 digest, token_hash is uniquely indexed so this is a
+    // single index probe however many rows the table holds. Only the columns the refresh
+    // endpoint uses are read, no entities are loaded.
+    public Optional<RefreshSession> findSession(String token) {
+        return refreshTokenRepository.findSessionByTokenHash(TokenHasher.sha256(token));
     }
 
     //Deletes expired tokens and ask users to login again
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepository.delete(token);
-            throw new RuntimeException(token.getToken() + " Refresh token is expired. Please make a new login..!");
+    public RefreshSession verifyExpiration(RefreshSession session) {
+        if (session.expiryDate().compareTo(Instant.now()) < 0) {
+            refreshTokenRepository.deleteByTokenHash(session.tokenHash());
+            throw new RuntimeException("Refresh token is expired. Please make a new login..!");
+        }
+        return session;
+    }
+
+    //Same shared authorities loadUserByUsername hands out, from the role ids alone
+    public List<GrantedAuthority> findAuthorities(String userId) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (Long roleId : userRepository.findRoleIdsByUserId(userId)) {
+            GrantedAuthority authority = roleAuthorityCatalog.byRoleId(roleId);
+            if (authority != null) {
+                authorities.add(authority);
+            }
         }
-        return token;
+        return authorities;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.example.service;
+
+import com.google.common.collect.ImmutableMap;
+import jakarta.annotation.PostConstruct;
+import org.example.entities.UserRole;
+import org.example.repository.UserRoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// One shared GrantedAuthority per row of the roles table, built at startup and refreshed
+// periodically. Principals reference these instances instead of creating (and upper-casing)
+// a new authority per role on every load, and equal authorities are the same object, so
+// comparing them stops at the identity check.
+@Component
+public class RoleAuthorityCatalog {
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    private volatile Catalog catalog = new Catalog(ImmutableMap.of(), ImmutableMap.of());
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${auth.roles.refresh-interval-ms:300000}",
+            fixedDelayString = "${auth.roles.refresh-interval-ms:300000}")
+    public void refresh() {
+        ImmutableMap.Builder<Long, GrantedAuthority> byRoleId = ImmutableMap.builder();
+        ImmutableMap.Builder<String, GrantedAuthority> byName = ImmutableMap.builder();
+        for (UserRole role : userRoleRepository.findAll()) {
+            GrantedAuthority authority = new SimpleGrantedAuthority(role.getName().toUpperCase());
+            byRoleId.put(role.getRoleId(), authority);
+            byName.put(authority.getAuthority(), authority);
+        }
+        catalog = new Catalog(byRoleId.build(), byName.buildKeepingLast());
+    }
+
+    //A role created since the last refresh triggers one reload; null if the role really doesn't exist
+    public GrantedAuthority byRoleId(Long roleId) {
+        GrantedAuthority authority = catalog.byRoleId().get(roleId);
+        if (authority == null) {
+            refresh();
+            authority = catalog.byRoleId().get(roleId);
+        }
+        return authority;
+    }
+
+    //For authority names read back from token claims; unknown names still get an authority of their own
+    public GrantedAuthority byName(String name) {
+        GrantedAuthority authority = catalog.byName().get(name);
+        return authority != null ? authority : new SimpleGrantedAuthority(name);
+    }
+
+    private record Catalog(Map<Long, GrantedAuthority> byRoleId, Map<String, GrantedAuthority> byName) {
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Sits in front of UserDetailsServiceImpl so repeated requests for the same user don't
+// go back to MySQL. Unknown usernames are remembered separately, with a shorter expiry,
+// so a burst of requests for a user that doesn't exist can't hammer the database either.
+// Keys are lower-cased because users.username compares case-insensitively in MySQL: "Alice"
+// and "alice" are the same row and must share one entry, positive or negative.
+// Hit, miss and eviction counts are published as the cache.* metrics on /actuator/metrics.
+@Component
+public class UserDetailsCache {
+
+    private static final Boolean MISSING = Boolean.TRUE;
+
+    private final Cache<String, UserDetails> users;
+
+    private final Cache<String, Boolean> unknownUsernames;
+
+    public UserDetailsCache(@Value("${auth.user-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${auth.user-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.unknownUsernames = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(negativeTtlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, users, "userDetails");
+        GuavaCacheMetrics.monitor(meterRegistry, unknownUsernames, "unknownUsernames");
+    }
+
+    //Returns null when the loader (or an earlier load) found no such user
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        String key = key(username);
+        UserDetails cached = users.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (unknownUsernames.getIfPresent(key) != null) {
+            return null;
+        }
+
+        UserDetails loaded = loader.apply(username);
+        if (loaded == null) {
+            unknownUsernames.put(key, MISSING);
+        } else {
+            users.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    //Must be called whenever a write changes what loadUserByUsername would return for this user
+    public void invalidate(String username) {
+        String key = key(username);
+        users.invalidate(key);
+        unknownUsernames.invalidate(key);
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,20 +2,27 @@ package org.example.service;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.example.entities.UserInfo;
+import org.example.model.UserCredentials;
 import org.example.model.UserInfoDto;
 import org.example.repository.UserRepository;
 import org.example.utils.ValidateEmailPass;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Component
 @AllArgsConstructor
 @Data
@@ -31,48 +38,75 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private final ValidateEmailPass validateEmailPass;
 
+    @Autowired
+    private final UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private final RoleAuthorityCatalog roleAuthorityCatalog;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserInfo userInfo = userRepository.findByUsername(username);
-        if (userInfo == null) {
+        UserDetails userDetails = userDetailsCache.get(username, this::loadFromDatabase);
+        if (userDetails == null) {
             throw new UsernameNotFoundException("UserDetailsServiceImpl" +
                     ".loadByUserName  Could Not Found User with username: " + username);
         }
-        return new CustomUserDetails(userInfo);
+        return userDetails;
     }
 
-
-    public UserInfo checkIfUserAlreadyExists(UserInfoDto userInfoDto) {
-        return userRepository.findByUsername(userInfoDto.getUsername());
+    private UserDetails loadFromDatabase(String username) {
+        List<UserCredentials> rows = userRepository.findCredentialsByUsername(username);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(rows.size());
+        for (UserCredentials row : rows) {
+            GrantedAuthority authority = row.roleId() == null ? null : roleAuthorityCatalog.byRoleId(row.roleId());
+            if (authority != null) {
+                authorities.add(authority);
+            }
+        }
+        UserCredentials user = rows.get(0);
+        return new CustomUserDetails(user.userId(), user.username(), user.password(), authorities);
     }
 
+    //Call after anything that changes a user's password or roles so the cached copy is dropped
+    public void evictUser(String username) {
+        userDetailsCache.invalidate(username);
+    }
 
-    public Boolean signupUser(UserInfoDto userInfoDto) {
 
-        if (checkIfUserAlreadyExists(userInfoDto) != null) {
-            return false;
+    //A taken username is turned away by an indexed lookup before any bcrypt work is spent on it.
+    // Concurrent signups for the same name can both pass that check; the unique index on
+    // users.username then lets exactly one insert through and the other gets null.
+    // Returns the new user for token creation, or null when the username is taken.
+    public UserInfo signupUser(UserInfoDto userInfoDto) {
+        if (userRepository.existsByUsername(userInfoDto.getUsername())) {
+            return null;
         }
 
         String userId = UUID.randomUUID().toString();
 
+        //Input was validated by the controller; an encoder failure here is a server error, not a taken username
+        String hashedPassword = passwordEncoder.encode(userInfoDto.getPassword());
         try {
-
-            String hashedPassword = passwordEncoder.encode(userInfoDto.getPassword());
-            userRepository.save(new UserInfo(
-                    userId,
-                    userInfoDto.getUsername(),
-                    hashedPassword,
-                    new HashSet<>()
-            ));
-
-            System.out.println("User signed up successfully");
-            return true;
-
-        } catch (IllegalArgumentException ex) {
-            System.out.println("Validation failed: " + ex.getMessage());
+            userRepository.insert(userId, userInfoDto.getUsername(), hashedPassword);
+        } catch (DataIntegrityViolationException ex) {
+            //Lost the race for the name; anything else is a real failure and propagates
+            if (userRepository.existsByUsername(userInfoDto.getUsername())) {
+                return null;
+            }
+            throw ex;
         }
-
-        return false;
+        evictUser(userInfoDto.getUsername());
+
+        log.debug("User {} signed up", userId);
+        return new UserInfo(
+                userId,
+                userInfoDto.getUsername(),
+                hashedPassword,
+                new HashSet<>()
+        );
     }
 
 }
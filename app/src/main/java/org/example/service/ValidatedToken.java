@@ -0,0 +1,53 @@
+package org.example.service;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+// A JWT whose signature has already been verified. The parsed claims travel with the
+// token so callers never go back through the parser for the same request.
+@Getter
+@AllArgsConstructor
+public class ValidatedToken {
+
+    private final String token;
+
+    private final Claims claims;
+
+    public String getId() {
+        return claims.getId();
+    }
+
+    public String getUsername() {
+        return claims.getSubject();
+    }
+
+    public Date getIssuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    public String getUserId() {
+        return claims.get(JwtService.USER_ID_CLAIM, String.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles() {
+        return claims.get(JwtService.ROLES_CLAIM, List.class);
+    }
+
+    //Tokens issued before stateless mode was switched on don't carry these and still need a user lookup
+    public boolean hasIdentityClaims() {
+        return getUserId() != null && getRoles() != null;
+    }
+
+    public boolean isExpired() {
+        return claims.getExpiration().before(new Date());
+    }
+}
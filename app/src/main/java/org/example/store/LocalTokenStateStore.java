@@ -0,0 +1,148 @@
+package org.example.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.auth.RateLimitProperties;
+import org.example.service.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Keeps all state in this JVM. Right for a single instance; with several pods each one
+// enforces its own limits and only sees revocations made through itself.
+// Buckets live in a Guava cache: lock-striped, bounded in size, and idle keys expire on their
+// own, so a flood of distinct keys can't grow memory without limit. Revocations only expire
+// with the access tokens they cover; evicting one early would quietly let revoked tokens
+// back in, so when the store is full a new revocation is refused instead.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.token-state.store", havingValue = "local", matchIfMissing = true)
+public class LocalTokenStateStore implements TokenStateStore {
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final Cache<String, Revocation> revocations;
+
+    private final long maxRevocations;
+
+    private final Counter rejectedRevocations;
+
+    public LocalTokenStateStore(RateLimitProperties rateLimitProperties,
+                                @Value("${auth.token-state.local.max-revocations:100000}") long maxRevocations,
+                                MeterRegistry meterRegistry) {
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(rateLimitProperties.getMaxTrackedKeys())
+                .expireAfterAccess(rateLimitProperties.getIdleEviction().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+        //No revocation outlives the longest access token, shorter ttls are checked on read
+        this.revocations = CacheBuilder.newBuilder()
+                .expireAfterWrite(JwtService.ACCESS_TOKEN_VALIDITY_MILLIS, TimeUnit.MILLISECONDS)
+                .build();
+        this.maxRevocations = maxRevocations;
+        this.rejectedRevocations = Counter.builder("auth.token_state.revocations_rejected")
+                .description("Revocations refused because the local store was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long[] tryAcquire(List<RateLimit> limits) {
+        TokenBucket[] held = new TokenBucket[limits.size()];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = bucket(limits.get(i).key());
+        }
+        //Locked in key order, so two requests sharing buckets can't deadlock
+        Integer[] lockOrder = new Integer[held.length];
+        for (int i = 0; i < lockOrder.length; i++) {
+            lockOrder[i] = i;
+        }
+        Arrays.sort(lockOrder, Comparator.comparing(i -> limits.get(i).key()));
+
+        int locked = 0;
+        try {
+            for (; locked < lockOrder.length; locked++) {
+                held[lockOrder[locked]].lock.lock();
+            }
+            return acquireAll(limits, held);
+        } finally {
+            while (locked > 0) {
+                held[lockOrder[--locked]].lock.unlock();
+            }
+        }
+    }
+
+    //Every bucket is checked before any is drawn from, a rejected request costs no bucket a token
+    private long[] acquireAll(List<RateLimit> limits, TokenBucket[] held) {
+        long now = System.nanoTime();
+        long[] waits = new long[held.length];
+        boolean admitted = true;
+        for (int i = 0; i < waits.length; i++) {
+            RateLimit limit = limits.get(i);
+            waits[i] = held[i].waitNanos(now, limit.capacity(), limit.period().toNanos());
+            admitted &= waits[i] == 0;
+        }
+        if (admitted) {
+            for (int i = 0; i < waits.length; i++) {
+                RateLimit limit = limits.get(i);
+                held[i].take(now, limit.capacity(), limit.period().toNanos());
+            }
+        }
+        return waits;
+    }
+
+    private TokenBucket bucket(String key) {
+        try {
+            return buckets.get(key, TokenBucket::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void revoke(String key, Instant revokedAt, Duration ttl) {
+        //A soft cap: concurrent revokes may overshoot it slightly, but nothing is ever evicted
+        if (revocations.size() >= maxRevocations && revocations.getIfPresent(key) == null) {
+            revocations.cleanUp();
+            if (revocations.size() >= maxRevocations) {
+                rejectedRevocations.increment();
+                log.error("Local revocation store is full ({} entries), refusing to revoke {}", maxRevocations, key);
+                throw new IllegalStateException("Revocation store is full, raise auth.token-state.local.max-revocations"
+                        + " or use the redis store");
+            }
+        }
+        revocations.put(key, new Revocation(revokedAt, Instant.now().plus(ttl)));
+    }
+
+    @Override
+    public Map<String, Instant> findRevocations(Collection<String> keys) {
+        Instant now = Instant.now();
+        Map<String, Instant> found = new HashMap<>();
+        for (String key : keys) {
+            Revocation revocation = revocations.getIfPresent(key);
+            if (revocation != null) {
+                if (revocation.expiresAt().isAfter(now)) {
+                    found.put(key, revocation.revokedAt());
+                } else {
+                    revocations.invalidate(key);
+                }
+            }
+        }
+        return found;
+    }
+
+    private record Revocation(Instant revokedAt, Instant expiresAt) {
+    }
+}
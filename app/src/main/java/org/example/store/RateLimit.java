@@ -0,0 +1,7 @@
+package org.example.store;
+
+import java.time.Duration;
+
+// One bucket to take a token from: `capacity` requests per `period`, refilled continuously.
+public record RateLimit(String key, int capacity, Duration period) {
+}
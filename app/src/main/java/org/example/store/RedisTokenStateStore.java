@@ -0,0 +1,123 @@
+package org.example.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shares buckets and revocations between every auth pod through Redis. A rate-limit check is
+// one EVALSHA covering all of the request's buckets, and a revocation lookup is one MGET, so a
+// request never makes more than one round trip to Redis. Bucket state is computed with the
+// Redis server clock, so pods with skewed clocks still agree.
+// The multi-key script needs all keys in one slot, so on Redis Cluster set
+// auth.token-state.redis.key-prefix to a hash tag such as "{auth}:".
+@Component
+@ConditionalOnProperty(name = "auth.token-state.store", havingValue = "redis")
+public class RedisTokenStateStore implements TokenStateStore {
+
+    // Same GCRA as TokenBucket, one arrival time (in micros) per key. A key expires once its
+    // bucket would be full again, so idle keys clean themselves up. Every bucket is checked
+    // before any is written, so a request rejected by one bucket takes nothing from the others.
+    private static final String ACQUIRE_LUA = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local waits = {}
+            local nextTats = {}
+            local admitted = true
+            for i, key in ipairs(KEYS) do
+              local capacity = tonumber(ARGV[2 * i - 1])
+              local period = tonumber(ARGV[2 * i])
+              local interval = period / capacity
+              local tat = tonumber(redis.call('GET', key)) or now
+              if tat < now then tat = now end
+              nextTats[i] = tat + interval
+              local overflow = nextTats[i] - now - period
+              if overflow > 0 then
+                waits[i] = math.ceil(overflow)
+                admitted = false
+              else
+                waits[i] = 0
+              end
+            end
+            if admitted then
+              for i, key in ipairs(KEYS) do
+                redis.call('SET', key, string.format('%.0f', nextTats[i]), 'PX', math.ceil((nextTats[i] - now) / 1000) + 1)
+              end
+            end
+            return waits
+            """;
+
+    private static final RedisScript<List<Long>> ACQUIRE_SCRIPT = acquireScript();
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public RedisTokenStateStore(StringRedisTemplate redisTemplate,
+                                @Value("${auth.token-state.redis.key-prefix:auth:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public long[] tryAcquire(List<RateLimit> limits) {
+        List<String> keys = new ArrayList<>(limits.size());
+        Object[] args = new Object[limits.size() * 2];
+        for (int i = 0; i < limits.size(); i++) {
+            RateLimit limit = limits.get(i);
+            keys.add(keyPrefix + "rl:" + limit.key());
+            args[2 * i] = String.valueOf(limit.capacity());
+            args[2 * i + 1] = String.valueOf(limit.period().toNanos() / 1000);
+        }
+
+        List<Long> waitsMicros = redisTemplate.execute(ACQUIRE_SCRIPT, keys, args);
+        long[] waits = new long[limits.size()];
+        for (int i = 0; i < waits.length; i++) {
+            waits[i] = waitsMicros.get(i) * 1000;
+        }
+        return waits;
+    }
+
+    //Lua integer arrays come back as a List of Long; the class literal can only be raw
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Long>> acquireScript() {
+        DefaultRedisScript<List<Long>> script = new DefaultRedisScript<>();
+        script.setScriptText(ACQUIRE_LUA);
+        script.setResultType((Class<List<Long>>) (Class<?>) List.class);
+        return script;
+    }
+
+    @Override
+    public void revoke(String key, Instant revokedAt, Duration ttl) {
+        redisTemplate.opsForValue().set(keyPrefix + "revoked:" + key, String.valueOf(revokedAt.toEpochMilli()), ttl);
+    }
+
+    @Override
+    public Map<String, Instant> findRevocations(Collection<String> keys) {
+        List<String> lookupKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            lookupKeys.add(keyPrefix + "revoked:" + key);
+        }
+
+        List<String> values = redisTemplate.opsForValue().multiGet(lookupKeys);
+        Map<String, Instant> found = new HashMap<>();
+        int i = 0;
+        for (String key : keys) {
+            String value = values == null ? null : values.get(i++);
+            if (value != null) {
+                found.put(key, Instant.ofEpochMilli(Long.parseLong(value)));
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.store;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token bucket kept as a single "theoretical arrival time" (the GCRA formulation). A request
+// may need a token from several buckets and must take from all of them or from none, so the
+// check and the take are separate steps made under the bucket's lock, see
+// LocalTokenStateStore.tryAcquire. A ReentrantLock rather than synchronized, so a virtual
+// thread waiting on it does not pin its carrier.
+final class TokenBucket {
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private long theoreticalArrival = Long.MIN_VALUE;
+
+    //0 when a token is available now, otherwise the nanos until one is. Caller holds the lock
+    long waitNanos(long nowNanos, long capacity, long periodNanos) {
+        long emissionInterval = periodNanos / capacity;
+        long next = Math.max(theoreticalArrival, nowNanos) + emissionInterval;
+        return Math.max(0, next - nowNanos - emissionInterval * capacity);
+    }
+
+    //Caller holds the lock and has just seen waitNanos return 0
+    void take(long nowNanos, long capacity, long periodNanos) {
+        theoreticalArrival = Math.max(theoreticalArrival, nowNanos) + periodNanos / capacity;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.store;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Shared state the auth endpoints need to agree on across pods: rate-limit buckets and
+// revocations. Every method takes a batch so a request costs at most one call to the store,
+// however many keys it needs to check.
+public interface TokenStateStore {
+
+    //Takes one token from each bucket, or from none of them when any bucket is empty. Returns,
+    // in the same order, 0 for each bucket that has a token or the nanos until it has one again
+    long[] tryAcquire(List<RateLimit> limits);
+
+    //Marks everything issued for `key` before `revokedAt` as revoked, for `ttl`. Throws
+    // IllegalStateException when the revocation can't be kept
+    void revoke(String key, Instant revokedAt, Duration ttl);
+
+    //Revocation instants of the keys that have one, keys without a revocation are left out
+    Map<String, Instant> findRevocations(Collection<String> keys);
+
+    static String userRevocationKey(String username) {
+        return "user:" + username;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.utils;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import static java.security.DrbgParameters.Capability.RESEED_ONLY;
+
+// Opaque refresh tokens: 256 random bits, base64url without padding (43 characters).
+// Randomness comes from a fixed set of DRBG instances, each seeded from the system CSPRNG,
+// and a thread always uses the same one, so parallel logins spread over the stripes instead
+// of queueing on the single SecureRandom behind UUID.randomUUID(). The set is sized to the
+// CPU count rather than one per thread: request threads may be virtual and short-lived, and
+// seeding a DRBG for each of them would cost more than the contention it saves.
+public final class TokenGenerator {
+
+    public static final int TOKEN_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final SecureRandom[] STRIPES = createStripes();
+
+    private static final int MASK = STRIPES.length - 1;
+
+    private TokenGenerator() {
+    }
+
+    public static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        STRIPES[(int) Thread.currentThread().threadId() & MASK].nextBytes(bytes);
+        //Encodes straight into the result string, no hex or UUID intermediate
+        return ENCODER.encodeToString(bytes);
+    }
+
+    //Power of two so picking a stripe is a mask, at least twice the CPUs to keep collisions rare
+    private static SecureRandom[] createStripes() {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        SecureRandom[] randoms = new SecureRandom[stripes];
+        for (int i = 0; i < stripes; i++) {
+            try {
+                randoms[i] = SecureRandom.getInstance("DRBG",
+                        DrbgParameters.instantiation(256, RESEED_ONLY, null));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("DRBG SecureRandom is not available on this JVM", e);
+            }
+        }
+        return randoms;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Refresh tokens are stored and looked up by their SHA-256 digest. The digest is a
+// fixed 32 bytes, so the unique index on it stays small no matter how tokens are formatted.
+public final class TokenHasher {
+
+    private TokenHasher() {
+    }
+
+    public static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available on this JVM", e);
+        }
+    }
+}
@@ -1,12 +1,60 @@
 package org.example.utils;
 
+import com.google.common.collect.ImmutableSet;
+import org.example.model.UserInfoDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Component
 public class ValidateEmailPass {
 
+    private static final int MAX_USERNAME_LENGTH = 255; // users.username column size
+
+    // Basic email structure check, compiled once instead of on every String.matches call
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    private static final String PASSWORD_SPECIAL_CHARACTERS = "@$!%*?&";
+
+    // bcrypt only reads the first 72 bytes of its input and Spring's encoder rejects anything longer
+    private static final int MAX_PASSWORD_BYTES = 72;
+
+    // Acceptable domains and TLDs, hash sets so each lookup is O(1)
+    private final Set<String> validDomains;
+
+    private final Set<String> validTLDs;
+
+    public ValidateEmailPass(
+            @Value("${auth.validation.allowed-domains:gmail,yahoo,outlook,hotmail,edu,gov,company,university,business}")
+            List<String> validDomains,
+            @Value("${auth.validation.allowed-tlds:com,org,net,edu,gov,mil,co,ac,in,uk,us,au,ca,de,fr,jp,cn,it,nl,ru}")
+            List<String> validTLDs) {
+        this.validDomains = ImmutableSet.copyOf(validDomains);
+        this.validTLDs = ImmutableSet.copyOf(validTLDs);
+    }
+
+    //Runs every check on a signup request before any hashing or database work is done.
+    // Throws IllegalArgumentException describing the first rule that fails.
+    public void validateSignup(UserInfoDto userInfoDto) {
+        validateUsername(userInfoDto.getUsername());
+        validateEmail(userInfoDto.getEmail());
+        validatePassword(userInfoDto.getPassword());
+    }
+
+    public Boolean validateUsername(String username) {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username cannot be null or empty");
+        }
+
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            throw new IllegalArgumentException("Username length must be at most " + MAX_USERNAME_LENGTH + " characters");
+        }
+        return true;
+    }
 
     public Boolean validateEmail(String email) {
         if (email == null || email.isEmpty()) {
@@ -21,31 +69,20 @@ public class ValidateEmailPass {
             throw new IllegalArgumentException("Email length must be less than 50 characters");
         }
 
-        // Basic email structure check
-        String emailRegex = "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
-        if (!email.matches(emailRegex)) {
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
             throw new IllegalArgumentException("Invalid email format. Must be like \"abc@gmail.com\"");
         }
 
-        // Extract domain and TLD to validate further
-        String domainPart = email.substring(email.indexOf('@') + 1); // e.g., gmail.com
-        String[] parts = domainPart.split("\\.");
-
-        if (parts.length < 2) {
+        // Extract domain and TLD to validate further, e.g. gmail.com -> "gmail" and "com"
+        int domainStart = email.indexOf('@') + 1;
+        int domainEnd = email.indexOf('.', domainStart);
+        if (domainEnd < 0) {
             throw new IllegalArgumentException("Email must contain a valid domain and top-level domain");
         }
+        int tldEnd = email.indexOf('.', domainEnd + 1);
 
-        String domain = parts[0];
-        String tld = parts[1];
-
-        // Acceptable domains and TLDs
-        List<String> validDomains = List.of(
-                "gmail", "yahoo", "outlook", "hotmail", "edu", "gov", "company", "university", "business"
-        );
-
-        List<String> validTLDs = List.of(
-                "com", "org", "net", "edu", "gov", "mil", "co", "ac", "in", "uk", "us", "au", "ca", "de", "fr", "jp", "cn", "it", "nl", "ru"
-        );
+        String domain = email.substring(domainStart, domainEnd);
+        String tld = email.substring(domainEnd + 1, tldEnd < 0 ? email.length() : tldEnd);
 
         if (!validDomains.contains(domain)) {
             throw new IllegalArgumentException("Email must contain a valid domain name from: " + validDomains);
@@ -64,19 +101,42 @@ public class ValidateEmailPass {
             throw new IllegalArgumentException("Password must be at least 12 characters long");
         }
 
-        if (!password.matches(".*[a-z].*")) {
+        if (password.getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            throw new IllegalArgumentException("Password must be at most " + MAX_PASSWORD_BYTES
+                    + " bytes long in UTF-8");
+        }
+
+        // One pass over the password collects every character class the rules below need
+        boolean hasLower = false;
+        boolean hasUpper = false;
+        boolean hasDigit = false;
+        boolean hasSpecial = false;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hasLower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                hasUpper = true;
+            } else if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (PASSWORD_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                hasSpecial = true;
+            }
+        }
+
+        if (!hasLower) {
             throw new IllegalArgumentException("Password must contain at least one lowercase letter");
         }
 
-        if (!password.matches(".*[A-Z].*")) {
+        if (!hasUpper) {
             throw new IllegalArgumentException("Password must contain at least one uppercase letter");
         }
 
-        if (!password.matches(".*\\d.*")) {
+        if (!hasDigit) {
             throw new IllegalArgumentException("Password must contain at least one digit");
         }
 
-        if (!password.matches(".*[@$!%*?&].*")) {
+        if (!hasSpecial) {
             throw new IllegalArgumentException("Password must contain at least one special " +
                     "character among (@, $, !, %, *, ?, &)");
         }
@@ -0,0 +1,30 @@
+package org.example;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Hibernate hook (spring.jpa.properties.hibernate.session_factory.statement_inspector) that
+// counts the SQL statements prepared on the current thread between start() and stop().
+// MockMvc runs the request on the test thread, background jobs are not counted.
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
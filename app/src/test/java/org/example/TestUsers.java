@@ -0,0 +1,40 @@
+package org.example;
+
+import org.example.model.UserInfoDto;
+
+// Request bodies for the public auth endpoints, valid against ValidateEmailPass
+public final class TestUsers {
+
+    public static final String PASSWORD = "Correct-Horse1!";
+
+    public static final String EMAIL = "someone@gmail.com";
+
+    private TestUsers() {
+    }
+
+    public static String signup(String username) {
+        return signup(username, PASSWORD);
+    }
+
+    public static String signup(String username, String password) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password
+                + "\",\"email\":\"" + EMAIL + "\"}";
+    }
+
+    //The same signup as a DTO, for tests that call UserDetailsServiceImpl.signupUser directly
+    public static UserInfoDto dto(String username) {
+        UserInfoDto dto = new UserInfoDto();
+        dto.setUsername(username);
+        dto.setPassword(PASSWORD);
+        dto.setEmail(EMAIL);
+        return dto;
+    }
+
+    public static String login(String username, String password) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+    }
+
+    public static String refresh(String token) {
+        return "{\"token\":\"" + token + "\"}";
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.auth;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class BearerTokenPrecheckTest {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    //Reference decoding of the header, slow but obviously right
+    private static final Pattern ALG = Pattern.compile("\"alg\"[ \t\n\r]*:[ \t\n\r]*\"([^\"\\\\]*)\"");
+
+    private JwtKeyProvider keyProvider;
+
+    private BearerTokenPrecheck precheck;
+
+    @BeforeEach
+    void setUp() {
+        keyProvider = TestKeys.hmacProvider();
+        precheck = new BearerTokenPrecheck(4096, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(precheck, "jwtKeyProvider", keyProvider);
+    }
+
+    @Test
+    void acceptsTokensWeIssue() {
+        String token = keyProvider.current().builder().subject("alice").compact();
+        assertNull(precheck.check("Bearer " + token));
+    }
+
+    @Test
+    void rejectsStructuralProblems() {
+        assertEquals(BearerTokenPrecheck.Rejection.EMPTY, precheck.check("Bearer "));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer abc"));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer a.b"));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer a.b.c.d"));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer .b.c"));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer a..c"));
+        assertEquals(BearerTokenPrecheck.Rejection.MALFORMED, precheck.check("Bearer a.b."));
+        assertEquals(BearerTokenPrecheck.Rejection.BAD_ENCODING, precheck.check("Bearer a+b.c.d"));
+        assertEquals(BearerTokenPrecheck.Rejection.BAD_ENCODING, precheck.check("Bearer a.b.c="));
+        assertEquals(BearerTokenPrecheck.Rejection.BAD_ENCODING, precheck.check("Bearer a.bé.c"));
+        assertEquals(BearerTokenPrecheck.Rejection.BAD_ENCODING, precheck.check("Bearer abcde.e30.c2ln"));
+        assertEquals(BearerTokenPrecheck.Rejection.TOO_LONG, precheck.check("Bearer " + "a".repeat(4097)));
+    }
+
+    @Test
+    void checksTheHeaderAlgorithm() {
+        assertNull(precheck.check(withHeader("{\"alg\":\"HS256\"}")));
+        assertNull(precheck.check(withHeader("{ \"typ\" : \"JWT\" , \"alg\" :\n \"HS256\" }")));
+        //"alg" appearing as a value must not be mistaken for the name
+        assertNull(precheck.check(withHeader("{\"kid\":\"alg\",\"alg\":\"HS256\"}")));
+
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"alg\":\"none\"}")));
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"alg\":\"RS256\"}")));
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"typ\":\"JWT\"}")));
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"alg\":\"HS256HS256\"}")));
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"alg\":\"\\u0048S256\"}")));
+        assertEquals(BearerTokenPrecheck.Rejection.UNSUPPORTED_ALGORITHM, precheck.check(withHeader("{\"alg\":HS256}")));
+    }
+
+    // Random headers built from the base64url alphabet and dots: the precheck must never throw,
+    // and whenever it lets a token through, a real decoder must agree on the structure and alg
+    @Test
+    void randomHeadersNeverThrowAndAgreeWithAReferenceDecoder() {
+        Random random = new Random(19);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder header = new StringBuilder("Bearer ");
+            int length = random.nextInt(80);
+            for (int j = 0; j < length; j++) {
+                int pick = random.nextInt(ALPHABET.length() + 4);
+                header.append(pick < ALPHABET.length() ? ALPHABET.charAt(pick) : pick % 2 == 0 ? '.' : (char) random.nextInt(0x3000));
+            }
+            assertAgreesWithReference(header.toString());
+        }
+    }
+
+    // Mutations of a genuine token: dropped, inserted and replaced characters, truncation.
+    // Whatever the precheck lets through must only ever fail inside jjwt with a JwtException.
+    @Test
+    void mutatedTokensNeverThrowAndOnlyFailAsJwtExceptions() {
+        String token = keyProvider.current().builder().subject("alice").compact();
+        Random random = new Random(23);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder mutated = new StringBuilder(token);
+            int edits = 1 + random.nextInt(4);
+            for (int e = 0; e < edits && mutated.length() > 0; e++) {
+                int at = random.nextInt(mutated.length());
+                switch (random.nextInt(4)) {
+                    case 0 -> mutated.deleteCharAt(at);
+                    case 1 -> mutated.insert(at, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    case 2 -> mutated.setCharAt(at, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                    default -> mutated.setLength(at);
+                }
+            }
+            String header = "Bearer " + mutated;
+            BearerTokenPrecheck.Rejection rejection = assertAgreesWithReference(header);
+            if (rejection == null && !mutated.toString().equals(token)) {
+                try {
+                    keyProvider.parser().parseSignedClaims(mutated.toString());
+                } catch (JwtException | IllegalArgumentException expected) {
+                    //the parser is where a passed-but-forged token has to end
+                } catch (RuntimeException unexpected) {
+                    fail("Unexpected " + unexpected + " for " + mutated);
+                }
+            }
+        }
+    }
+
+    private BearerTokenPrecheck.Rejection assertAgreesWithReference(String header) {
+        BearerTokenPrecheck.Rejection rejection = assertDoesNotThrow(() -> precheck.check(header), header);
+        if (rejection == null) {
+            String token = header.substring("Bearer ".length());
+            String[] parts = token.split("\\.", -1);
+            assertEquals(3, parts.length, header);
+            String json = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.ISO_8859_1);
+            Matcher alg = ALG.matcher(json);
+            assertTrue(alg.find(), header);
+            assertEquals("HS256", alg.group(1), header);
+        }
+        return rejection;
+    }
+
+    private static String withHeader(String json) {
+        String header = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        return "Bearer " + header + ".e30.c2ln";
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.auth;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachedBodyHttpServletRequestTest {
+
+    private static final String BODY = "{\"username\":\"alice\"}";
+
+    @Test
+    void readListenerGetsTheWholeBodyThenAllDataRead() throws Exception {
+        ServletInputStream in = new CachedBodyHttpServletRequest(new MockHttpServletRequest(),
+                BODY.getBytes(StandardCharsets.UTF_8)).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[4];
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(buffer, 0, in.read(buffer));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals(BODY, read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void listenerFailureIsReportedThroughOnError() {
+        ServletInputStream in = new CachedBodyHttpServletRequest(new MockHttpServletRequest(),
+                BODY.getBytes(StandardCharsets.UTF_8)).getInputStream();
+        List<Throwable> errors = new ArrayList<>();
+        IOException failure = new IOException("listener failed");
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                throw failure;
+            }
+
+            @Override
+            public void onAllDataRead() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+        });
+
+        assertEquals(List.of(failure), errors);
+    }
+}
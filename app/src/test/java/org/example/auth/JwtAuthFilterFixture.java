@@ -0,0 +1,43 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.AccessTokenRevocationService;
+import org.example.service.JwtService;
+import org.example.service.RoleAuthorityCatalog;
+import org.example.service.UserDetailsServiceImpl;
+import org.example.store.TokenStateStore;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+// JwtAuthFilter wired by hand: real parsing and precheck over TestKeys, with the collaborators
+// that would reach the database or Redis mocked. jwtService is a spy, so tests can check
+// whether a token was parsed at all
+final class JwtAuthFilterFixture {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    final JwtService jwtService;
+
+    final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+
+    final TokenStateStore tokenStateStore = mock(TokenStateStore.class);
+
+    final AccessTokenRevocationService accessTokenRevocationService = mock(AccessTokenRevocationService.class);
+
+    final JwtAuthFilter filter;
+
+    JwtAuthFilterFixture() {
+        JwtKeyProvider keyProvider = TestKeys.hmacProvider();
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "jwtKeyProvider", keyProvider);
+        jwtService = spy(service);
+
+        BearerTokenPrecheck precheck = new BearerTokenPrecheck(4096, meterRegistry);
+        ReflectionTestUtils.setField(precheck, "jwtKeyProvider", keyProvider);
+
+        filter = new JwtAuthFilter(jwtService, userDetailsService, tokenStateStore, accessTokenRevocationService,
+                precheck, meterRegistry, new RoleAuthorityCatalog());
+    }
+}
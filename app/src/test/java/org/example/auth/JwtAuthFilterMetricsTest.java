@@ -0,0 +1,45 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class JwtAuthFilterMetricsTest {
+
+    private final JwtAuthFilterFixture fixture = new JwtAuthFilterFixture();
+
+    private final SimpleMeterRegistry meterRegistry = fixture.meterRegistry;
+
+    private final JwtAuthFilter filter = fixture.filter;
+
+    @Test
+    void tagsWithTheMatchedRoutePattern() throws Exception {
+        for (String id : new String[] {"1", "2", "3"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/v1/users/" + id);
+            request.setServletPath("/auth/v1/users/" + id);
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/auth/v1/users/{id}"));
+        }
+
+        assertNotNull(meterRegistry.find(JwtAuthFilter.TIMER).tag("path", "/auth/v1/users/{id}").timer());
+        assertEquals(3, meterRegistry.find(JwtAuthFilter.TIMER).timer().count());
+        assertEquals(1, meterRegistry.find(JwtAuthFilter.TIMER).timers().size());
+    }
+
+    @Test
+    void unmatchedPathsShareOneTag() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/scanner/probe-" + i);
+            request.setServletPath("/scanner/probe-" + i);
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+        }
+
+        assertEquals(1, meterRegistry.find(JwtAuthFilter.TIMER).timers().size());
+        assertEquals(50, meterRegistry.find(JwtAuthFilter.TIMER).tag("path", "UNKNOWN").timer().count());
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class JwtAuthFilterTest {
+
+    private static final String GARBAGE = "Bearer not-a-jwt";
+
+    private final JwtAuthFilterFixture fixture = new JwtAuthFilterFixture();
+
+    @Test
+    void publicPathSkipsTokenParsing() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/v1/login");
+        request.setServletPath("/auth/v1/login");
+        request.addHeader("Authorization", GARBAGE);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fixture.filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        verify(fixture.jwtService, never()).parseToken(anyString());
+        assertNull(fixture.meterRegistry.find(JwtAuthFilter.TIMER).timer());
+    }
+
+    //getServletPath() is empty under a context path with the default mapping
+    @Test
+    void publicPathUnderAContextPathIsStillSkipped() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/v1/login");
+        request.setContextPath("/api");
+        request.addHeader("Authorization", GARBAGE);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fixture.filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void protectedPathRejectsAGarbageToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/v1/logout");
+        request.setServletPath("/auth/v1/logout");
+        request.addHeader("Authorization", GARBAGE);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fixture.filter.doFilter(request, response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+}
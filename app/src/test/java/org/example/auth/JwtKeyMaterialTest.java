@@ -0,0 +1,64 @@
+package org.example.auth;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import org.example.service.JwtService;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyMaterialTest {
+
+    private static final String OTHER_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Test
+    void hmacKidIsDerivedFromTheSecret() {
+        JwtKeyMaterial a = JwtKeyMaterial.fromBase64Secret(JwtService.JWT_SECRET_KEY);
+        JwtKeyMaterial b = JwtKeyMaterial.fromBase64Secret(JwtService.JWT_SECRET_KEY);
+
+        assertEquals(a.getKeyId(), b.getKeyId());
+        assertNotEquals(a.getKeyId(), JwtKeyMaterial.fromBase64Secret(OTHER_SECRET).getKeyId());
+        //A shared secret is never published
+        assertNull(a.getPublicJwk());
+    }
+
+    //The builder is mutable, so every token gets its own, all bound to the same decoded key
+    @Test
+    void handsOutAFreshBuilderPerToken() {
+        JwtKeyMaterial key = JwtKeyMaterial.fromBase64Secret(JwtService.JWT_SECRET_KEY);
+
+        assertNotSame(key.builder(), key.builder());
+        assertSame(key.getSigningKey(), key.getVerificationKey());
+    }
+
+    @Test
+    void sharedParserVerifiesEveryTokenFromTheCurrentKey() {
+        JwtKeyProvider provider = TestKeys.hmacProvider();
+
+        assertSame(provider.parser(), provider.parser());
+        for (String subject : new String[]{"alice", "bob"}) {
+            String token = provider.current().builder().subject(subject).compact();
+            assertEquals(subject, provider.parser().parseSignedClaims(token).getPayload().getSubject());
+        }
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherSecretUnderTheSameKid() {
+        JwtKeyProvider provider = TestKeys.hmacProvider();
+        JwtKeyMaterial other = JwtKeyMaterial.fromBase64Secret(OTHER_SECRET);
+        String forged = Jwts.builder()
+                .header().keyId(provider.current().getKeyId()).and()
+                .subject("alice")
+                .signWith((SecretKey) other.getSigningKey(), Jwts.SIG.HS256)
+                .compact();
+
+        assertThrows(SignatureException.class, () -> provider.parser().parseSignedClaims(forged));
+    }
+}
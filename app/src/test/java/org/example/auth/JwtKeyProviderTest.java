@@ -0,0 +1,88 @@
+package org.example.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtKeyProviderTest {
+
+    private JwtKeyProvider provider;
+
+    private JwtKeyMaterial first;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = TestKeys.hmacProvider();
+        first = ecKey();
+        //Replace the HMAC key the provider started with, then let the EC key take over
+        provider.install(first);
+        promoteNow();
+    }
+
+    @Test
+    void newKeyIsPublishedBeforeItSigns() throws Exception {
+        JwtKeyMaterial second = ecKey();
+        provider.install(second);
+
+        assertSame(first, provider.current());
+        assertSame(second, provider.pendingKey().material());
+        assertTrue(provider.jwkSet().json().contains(second.getKeyId()));
+        //Verify-only already, a peer that promoted earlier must not be rejected
+        provider.parser().parseSignedClaims(second.builder().subject("alice").compact());
+
+        provider.checkKeyRing();
+        assertSame(first, provider.current());
+    }
+
+    @Test
+    void promotionWaitsForTheJwksMaxAge() throws Exception {
+        JwtKeyMaterial second = ecKey();
+        provider.install(second);
+        String tokenFromFirst = first.builder().subject("alice").compact();
+
+        promoteNow();
+
+        assertSame(second, provider.current());
+        assertNull(provider.pendingKey());
+        assertEquals("alice", provider.parser().parseSignedClaims(tokenFromFirst).getPayload().getSubject());
+        assertTrue(provider.jwkSet().json().contains(first.getKeyId()));
+    }
+
+    @Test
+    void reinstallingTheSigningKeyWithdrawsThePendingOne() throws Exception {
+        JwtKeyMaterial second = ecKey();
+        provider.install(second);
+
+        provider.install(first);
+
+        assertSame(first, provider.current());
+        assertNull(provider.pendingKey());
+        assertFalse(provider.jwkSet().json().contains(second.getKeyId()));
+    }
+
+    private void promoteNow() {
+        JwtKeyProvider.PendingKey pending = provider.pendingKey();
+        if (pending != null) {
+            ReflectionTestUtils.setField(provider, "pendingKey", new JwtKeyProvider.PendingKey(pending.material(), Instant.EPOCH));
+        }
+        provider.checkKeyRing();
+    }
+
+    private static JwtKeyMaterial ecKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        return JwtKeyMaterial.fromKeyPair(keyPair.getPrivate(), keyPair.getPublic(), "ES256");
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.auth;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.example.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A restart (or a new pod) builds its key ring from the key source alone, so every key with
+// live tokens has to be read back from there
+class JwtKeyRingRestartTest {
+
+    private static final String PASSWORD = "changeit";
+
+    private static final String NEW_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void otherKeystoreAliasesKeepVerifyingAfterARestart() throws Exception {
+        Path keystore = dir.resolve("jwt.p12");
+        keytool(keystore, "jwt-signing-previous");
+        keytool(keystore, "jwt-signing");
+        //Before the rotation the key now under jwt-signing-previous was the one signing
+        String oldToken = TestKeys.keystoreProvider(keystore.toString(), PASSWORD, "jwt-signing-previous", "ES256")
+                .current().builder().subject("alice").compact();
+
+        JwtKeyProvider restarted = TestKeys.keystoreProvider(keystore.toString(), PASSWORD, "jwt-signing", "ES256");
+
+        assertEquals("alice", restarted.parser().parseSignedClaims(oldToken).getPayload().getSubject());
+        String oldKid = restarted.parser().parseSignedClaims(oldToken).getHeader().getKeyId();
+        assertNotEquals(oldKid, restarted.current().getKeyId());
+        assertTrue(restarted.jwkSet().json().contains(oldKid));
+    }
+
+    @Test
+    void previousSecretsKeepVerifyingAfterARestart() throws Exception {
+        Path secretFile = Files.writeString(dir.resolve("secret"), NEW_SECRET);
+        Path previousFile = Files.writeString(dir.resolve("previous"), JwtService.JWT_SECRET_KEY + "\n");
+        String oldToken = JwtKeyMaterial.fromBase64Secret(JwtService.JWT_SECRET_KEY).builder().subject("alice").compact();
+
+        JwtKeyProvider restarted = TestKeys.secretFileProvider(secretFile.toString(), previousFile.toString());
+        assertEquals("alice", restarted.parser().parseSignedClaims(oldToken).getPayload().getSubject());
+    }
+
+    @Test
+    void droppedPreviousSecretStopsVerifying() throws Exception {
+        String dropped = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+        Path secretFile = Files.writeString(dir.resolve("secret"), NEW_SECRET);
+        Path previousFile = Files.writeString(dir.resolve("previous"), dropped + "\n");
+        String oldToken = JwtKeyMaterial.fromBase64Secret(dropped).builder().subject("alice").compact();
+        JwtKeyProvider provider = TestKeys.secretFileProvider(secretFile.toString(), previousFile.toString());
+        provider.parser().parseSignedClaims(oldToken);
+
+        Files.writeString(previousFile, "");
+        provider.reload();
+
+        assertThrows(SignatureException.class, () -> provider.parser().parseSignedClaims(oldToken));
+    }
+
+    //Tokens from before kids were added are HS256 with no kid, they outlive a move to an asymmetric key
+    @Test
+    void kidLessLegacyTokenVerifiesAgainstTheLegacySecret() throws Exception {
+        Path keystore = dir.resolve("jwt.p12");
+        keytool(keystore, "jwt-signing");
+        String legacyToken = Jwts.builder()
+                .subject("alice")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.JWT_SECRET_KEY)), Jwts.SIG.HS256)
+                .compact();
+
+        JwtKeyProvider provider = TestKeys.keystoreProvider(keystore.toString(), PASSWORD, "jwt-signing", "ES256");
+
+        assertEquals("alice", provider.parser().parseSignedClaims(legacyToken).getPayload().getSubject());
+    }
+
+    //keytool is how these keystores are made in practice, and the JDK has no API to self-sign a certificate
+    private static void keytool(Path keystore, String alias) throws Exception {
+        Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(keytool.toString(), "-genkeypair", "-alias", alias,
+                "-keyalg", "EC", "-groupname", "secp256r1", "-sigalg", "SHA256withECDSA",
+                "-dname", "CN=" + alias, "-validity", "1", "-storetype", "PKCS12",
+                "-keystore", keystore.toString(), "-storepass", PASSWORD, "-keypass", PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "keytool timed out");
+        assertEquals(0, process.exitValue(), output);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.auth;
+
+import jakarta.servlet.http.MappingMatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletMapping;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestPathsTest {
+
+    @Test
+    void emptyServletPathFallsBackToTheRequestUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/v1/login");
+
+        assertEquals("/auth/v1/login", RequestPaths.lookupPath(request));
+    }
+
+    @Test
+    void contextPathIsStripped() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/auth/v1/login");
+        request.setContextPath("/app");
+        request.setServletPath("/auth/v1/login");
+
+        assertEquals("/auth/v1/login", RequestPaths.lookupPath(request));
+    }
+
+    //spring.mvc.servlet.path=/api: getServletPath() is "/api", controllers still see /auth/v1/login
+    @Test
+    void prefixMappedDispatcherServletIsStripped() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/v1/login");
+        request.setServletPath("/api");
+        request.setPathInfo("/auth/v1/login");
+        request.setHttpServletMapping(new MockHttpServletMapping("auth/v1/login", "/api/*", "dispatcherServlet",
+                MappingMatch.PATH));
+
+        assertEquals("/auth/v1/login", RequestPaths.lookupPath(request));
+    }
+
+    @Test
+    void encodedAndDoubledSlashVariantsResolveToTheSamePath() {
+        assertEquals("/auth/v1/login", RequestPaths.lookupPath(new MockHttpServletRequest("POST", "/auth/v1/%6Cogin")));
+        assertEquals("/auth/v1/login", RequestPaths.lookupPath(new MockHttpServletRequest("POST", "//auth/v1/login")));
+        assertEquals("/auth/v1/login",
+                RequestPaths.lookupPath(new MockHttpServletRequest("POST", "/auth/v1/login;jsessionid=1")));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.auth;
+
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigIntegrationTest {
+
+    //auth.rate-limit.endpoints.login.per-username.capacity
+    private static final int LOGIN_ATTEMPTS_PER_USERNAME = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void basicCredentialsAreNotAnAuthenticationMethod() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("basic-user")))
+                .andExpect(status().isOk());
+
+        //Correct credentials, yet no bcrypt check and no session: only a bearer token authenticates
+        for (int i = 0; i <= LOGIN_ATTEMPTS_PER_USERNAME; i++) {
+            mockMvc.perform(post("/auth/v1/logoutAll").with(httpBasic("basic-user", TestUsers.PASSWORD)))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"));
+        }
+    }
+
+    @Test
+    void passwordGuessesAreThrottledAfterTheBucketEmpties() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("guessed-user")))
+                .andExpect(status().isOk());
+
+        for (int i = 0; i < LOGIN_ATTEMPTS_PER_USERNAME; i++) {
+            mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUsers.login("guessed-user", "Wrong-Guess" + i + "!")))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login("guessed-user", TestUsers.PASSWORD)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.auth;
+
+import org.example.service.JwtService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// JwtKeyProvider wired by hand, the way Spring would with the defaults from application.properties
+public final class TestKeys {
+
+    private TestKeys() {
+    }
+
+    public static JwtKeyProvider hmacProvider() {
+        return hmacProvider(JwtService.JWT_SECRET_KEY);
+    }
+
+    public static JwtKeyProvider hmacProvider(String base64Secret) {
+        JwtKeyProvider provider = unstarted(base64Secret);
+        provider.init();
+        return provider;
+    }
+
+    public static JwtKeyProvider keystoreProvider(String location, String password, String alias, String algorithm) {
+        JwtKeyProvider provider = unstarted(JwtService.JWT_SECRET_KEY);
+        ReflectionTestUtils.setField(provider, "keystoreLocation", location);
+        ReflectionTestUtils.setField(provider, "keystorePassword", password);
+        ReflectionTestUtils.setField(provider, "keyAlias", alias);
+        ReflectionTestUtils.setField(provider, "algorithm", algorithm);
+        provider.init();
+        return provider;
+    }
+
+    public static JwtKeyProvider secretFileProvider(String secretFile, String previousSecretsFile) {
+        JwtKeyProvider provider = unstarted(JwtService.JWT_SECRET_KEY);
+        ReflectionTestUtils.setField(provider, "secretFile", secretFile);
+        ReflectionTestUtils.setField(provider, "previousSecretsFile", previousSecretsFile);
+        provider.init();
+        return provider;
+    }
+
+    //Fields set, init() not called yet
+    private static JwtKeyProvider unstarted(String base64Secret) {
+        JwtKeyProvider provider = new JwtKeyProvider();
+        ReflectionTestUtils.setField(provider, "secret", base64Secret);
+        ReflectionTestUtils.setField(provider, "secretFile", "");
+        ReflectionTestUtils.setField(provider, "previousSecretsFile", "");
+        ReflectionTestUtils.setField(provider, "keystoreLocation", "");
+        ReflectionTestUtils.setField(provider, "keystoreType", "PKCS12");
+        ReflectionTestUtils.setField(provider, "keystorePassword", "");
+        ReflectionTestUtils.setField(provider, "keyAlias", "");
+        ReflectionTestUtils.setField(provider, "algorithm", "RS256");
+        ReflectionTestUtils.setField(provider, "retirementGraceSeconds", 300L);
+        ReflectionTestUtils.setField(provider, "jwksMaxAgeSeconds", 300L);
+        return provider;
+    }
+}
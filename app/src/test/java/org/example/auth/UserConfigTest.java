@@ -0,0 +1,69 @@
+package org.example.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserConfigTest {
+
+    private static final String PASSWORD = "Correct-Horse1!";
+
+    @Test
+    void noBudgetKeepsTheMinimumStrength() {
+        BoundedPasswordEncoder encoder = encoder(0L);
+        try {
+            assertTrue(encoder.encode(PASSWORD).startsWith("{bcrypt}$2a$04$"));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void generousBudgetIsClampedToTheMaximumStrength() {
+        BoundedPasswordEncoder encoder = encoder(Long.MAX_VALUE);
+        try {
+            assertTrue(encoder.encode(PASSWORD).startsWith("{bcrypt}$2a$06$"));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    //Everything stored before the delegating encoder still matches and is flagged for a rehash
+    @Test
+    void legacyHashesMatchAndAreFlaggedForUpgrade() {
+        BoundedPasswordEncoder encoder = encoder(0L);
+        try {
+            String unprefixed = new BCryptPasswordEncoder(4).encode(PASSWORD);
+            String pbkdf2 = "{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode(PASSWORD);
+            String current = encoder.encode(PASSWORD);
+
+            assertTrue(encoder.matches(PASSWORD, unprefixed));
+            assertTrue(encoder.matches(PASSWORD, pbkdf2));
+            assertTrue(encoder.upgradeEncoding(unprefixed));
+            assertTrue(encoder.upgradeEncoding(pbkdf2));
+            assertFalse(encoder.upgradeEncoding(current));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    private static BoundedPasswordEncoder encoder(long targetHashMillis) {
+        UserConfig config = new UserConfig();
+        ReflectionTestUtils.setField(config, "targetHashMillis", targetHashMillis);
+        ReflectionTestUtils.setField(config, "minStrength", 4);
+        ReflectionTestUtils.setField(config, "maxStrength", 6);
+        ReflectionTestUtils.setField(config, "hashingThreads", 1);
+        ReflectionTestUtils.setField(config, "hashingQueueCapacity", 8);
+        ReflectionTestUtils.setField(config, "retryAfterSeconds", 1L);
+        PasswordEncoder encoder = config.passwordEncoder(new SimpleMeterRegistry());
+        assertEquals(BoundedPasswordEncoder.class, encoder.getClass());
+        return (BoundedPasswordEncoder) encoder;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.auth;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPoolSizerTest {
+
+    //Placeholder resolution is registered the way the application gets it, for the sizer's @Value arguments
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+            .withUserConfiguration(PoolConfig.class, VirtualThreadPoolSizer.class)
+            .withPropertyValues("auth.virtual-threads.pool.maximum-size=40",
+                    "auth.virtual-threads.pool.connection-timeout-ms=1500");
+
+    @Test
+    void platformThreadsKeepThePoolDefaults() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(VirtualThreadPoolSizer.class);
+            assertThat(context.getBean(HikariDataSource.class).getMaximumPoolSize()).isNotEqualTo(40);
+            assertThat(context.getBean(HikariDataSource.class).getConnectionTimeout()).isEqualTo(30_000);
+        });
+    }
+
+    @Test
+    void virtualThreadsSizeThePool() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            assertThat(context.getBean(HikariDataSource.class).getMaximumPoolSize()).isEqualTo(40);
+            assertThat(context.getBean(HikariDataSource.class).getConnectionTimeout()).isEqualTo(1500);
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class PoolConfig {
+
+        //Never asked for a connection, so no database is needed
+        @Bean
+        HikariDataSource dataSource() {
+            return new HikariDataSource();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LogoutAllIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void loginInTheSameSecondAsLogoutAllIsNotRevoked() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("relogin-user")))
+                .andExpect(status().isOk());
+        String before = login("relogin-user");
+
+        //Start on a fresh second so the logout and the next login share it
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        mockMvc.perform(post("/auth/v1/logoutAll").header(HttpHeaders.AUTHORIZATION, "Bearer " + before))
+                .andExpect(status().isNoContent());
+        String after = login("relogin-user");
+
+        mockMvc.perform(post("/auth/v1/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + before))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/v1/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + after))
+                .andExpect(status().isNoContent());
+    }
+
+    private String login(String username) throws Exception {
+        String body = mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login(username, TestUsers.PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("accessToken").asText();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.controller;
+
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SignupIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void overlongPasswordIsABadRequestNotADuplicateUser() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("long-password-user", "Aa1!" + "x".repeat(69))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("at most 72 bytes")));
+
+        //The name is still free
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("long-password-user")))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.SqlStatementCounter;
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Statements each auth endpoint runs, security filters included. Counts are exact: a fetch-plan
+// regression (an EAGER association creeping back, an N+1) fails here instead of shipping, and so
+// does an improvement, so the budget gets lowered with it.
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.example.SqlStatementCounter")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatementBudgetIntegrationTest {
+
+    //Name taken check, user insert, refresh token insert
+    private static final int SIGNUP_BUDGET = 3;
+
+    //Credentials with roles, user row lock, session count, refresh token insert
+    private static final int LOGIN_BUDGET = 4;
+
+    //Session lookup, rotating update
+    private static final int REFRESH_BUDGET = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authEndpointsStayWithinTheirStatementBudgets() throws Exception {
+        within(SIGNUP_BUDGET, "signup", post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                .content(TestUsers.signup("counted-user")));
+
+        String refreshToken = tokens(within(LOGIN_BUDGET, "login", post("/auth/v1/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUsers.login("counted-user", TestUsers.PASSWORD)))).path("token").asText();
+
+        within(REFRESH_BUDGET, "refresh", post("/auth/v1/refreshToken").contentType(MediaType.APPLICATION_JSON)
+                .content(TestUsers.refresh(refreshToken)));
+    }
+
+    private ResultActions within(int budget, String endpoint, MockHttpServletRequestBuilder request) throws Exception {
+        SqlStatementCounter.start();
+        ResultActions result;
+        int statements;
+        try {
+            result = mockMvc.perform(request).andExpect(status().isOk());
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        assertEquals(budget, statements, endpoint + " ran " + statements + " statements, budget is " + budget);
+        return result;
+    }
+
+    private JsonNode tokens(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Polls only when the test says so, the scheduled refresh would otherwise race the assertions
+@SpringBootTest(properties = {"auth.revocation.refresh-interval-ms=3600000",
+        "auth.revocation.rebuild-interval-ms=3600000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AccessTokenRevocationIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccessTokenRevocationService revocationService;
+
+    @Test
+    void revokedJtiIsRejectedAndOthersPass() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("revoking-user")))
+                .andExpect(status().isOk());
+        String revoked = login("revoking-user");
+        String kept = login("revoking-user");
+
+        mockMvc.perform(post("/auth/v1/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/auth/v1/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/v1/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + kept))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void unknownJtiIsNotRevoked() {
+        revocationService.revoke("revoked-jti", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertTrue(revocationService.isRevoked("revoked-jti"));
+        assertFalse(revocationService.isRevoked("never-revoked-jti"));
+        assertFalse(revocationService.isRevoked(null));
+    }
+
+    //Another pod's row that committed after a newer one, and with a lower id, was skipped by an id cursor
+    @Test
+    void lateCommittedRevocationFromAnotherPodIsPickedUpByTheNextPoll() {
+        Instant now = Instant.now();
+        insertFromAnotherPod(900_002L, "newer-jti", now);
+        revocationService.refresh();
+        assertTrue(revocationService.isRevoked("newer-jti"));
+
+        insertFromAnotherPod(900_001L, "late-jti", now.minusSeconds(10));
+        assertFalse(revocationService.isRevoked("late-jti"));
+
+        revocationService.refresh();
+        assertTrue(revocationService.isRevoked("late-jti"));
+    }
+
+    private void insertFromAnotherPod(long id, String jti, Instant revokedAt) {
+        jdbcTemplate.update("INSERT INTO revoked_tokens (id, jti, revoked_at, expires_at) VALUES (?, ?, ?, ?)",
+                id, jti, Timestamp.from(revokedAt), Timestamp.from(revokedAt.plus(1, ChronoUnit.HOURS)));
+    }
+
+    private String login(String username) throws Exception {
+        String body = mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login(username, TestUsers.PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("accessToken").asText();
+    }
+}
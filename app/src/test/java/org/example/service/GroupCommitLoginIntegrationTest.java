@@ -0,0 +1,67 @@
+package org.example.service;
+
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// More concurrent logins than pooled connections, all waiting on the group-commit writer.
+// A request that kept its connection while waiting would starve the writer into the timeout
+@SpringBootTest(properties = {
+        "auth.refresh-token.group-commit.enabled=true",
+        "auth.refresh-token.group-commit.wait-ms=2000",
+        "spring.datasource.hikari.maximum-pool-size=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GroupCommitLoginIntegrationTest {
+
+    private static final int LOGINS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void concurrentLoginsDoNotHoldTheWritersConnections() throws Exception {
+        for (int i = 0; i < LOGINS; i++) {
+            mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUsers.signup("grouped-user-" + i)))
+                    .andExpect(status().isOk());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> logins = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                String username = "grouped-user-" + i;
+                logins.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                                    .content(TestUsers.login(username, TestUsers.PASSWORD)))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> login : logins) {
+                assertEquals(200, login.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.example.auth.JwtKeyProvider;
+import org.example.auth.TestKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+
+    private JwtKeyProvider keyProvider;
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        keyProvider = TestKeys.hmacProvider();
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtKeyProvider", keyProvider);
+    }
+
+    @Test
+    void parsedTokenCarriesEveryClaimTheFilterReads() {
+        String token = jwtService.GenerateToken("alice");
+
+        ValidatedToken parsed = jwtService.parseToken(token);
+
+        assertEquals(token, parsed.getToken());
+        assertEquals("alice", parsed.getUsername());
+        assertNotNull(parsed.getId());
+        assertTrue(parsed.getExpiration().after(parsed.getIssuedAt()));
+        assertFalse(parsed.isExpired());
+        //Not stateless by default, so the filter still loads the user
+        assertFalse(parsed.hasIdentityClaims());
+    }
+
+    @Test
+    void validatesAgainstTheUserWithoutParsingAgain() {
+        ValidatedToken parsed = jwtService.parseToken(jwtService.GenerateToken("alice"));
+
+        assertTrue(jwtService.validateToken(parsed, user("alice")));
+        assertFalse(jwtService.validateToken(parsed, user("bob")));
+    }
+
+    @Test
+    void agreesWithTheStringBasedValidation() {
+        String token = jwtService.GenerateToken("alice");
+
+        assertEquals(jwtService.validateToken(token, user("alice")),
+                jwtService.validateToken(jwtService.parseToken(token), user("alice")));
+        assertEquals(jwtService.extractUsername(token), jwtService.parseToken(token).getUsername());
+    }
+
+    @Test
+    void statelessTokenCarriesUserIdAndRoles() {
+        ReflectionTestUtils.setField(jwtService, "stateless", true);
+
+        ValidatedToken parsed = jwtService.parseToken(jwtService.GenerateToken("alice", "user-1",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        assertTrue(parsed.hasIdentityClaims());
+        assertEquals("user-1", parsed.getUserId());
+        assertEquals(List.of("ROLE_USER"), parsed.getRoles());
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        long now = System.currentTimeMillis();
+        String expired = keyProvider.current().builder()
+                .subject("alice")
+                .issuedAt(new Date(now - 120_000))
+                .expiration(new Date(now - 60_000))
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(expired));
+    }
+
+    @Test
+    void rejectsATamperedToken() {
+        String token = jwtService.GenerateToken("alice");
+        int dot = token.lastIndexOf('.');
+        char last = token.charAt(dot + 1);
+        String tampered = token.substring(0, dot + 1) + (last == 'A' ? 'B' : 'A') + token.substring(dot + 2);
+
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("unused").roles("USER").build();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.service;
+
+import org.example.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordRehashIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Test
+    void loginWithALegacyHashUpgradesItInTheBackground() throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup("legacy-hash-user")))
+                .andExpect(status().isOk());
+        //What the table held before the delegating encoder: bcrypt with no {id} prefix
+        jdbcTemplate.update("UPDATE users SET password = ? WHERE username = ?",
+                new BCryptPasswordEncoder(4).encode(TestUsers.PASSWORD), "legacy-hash-user");
+        userDetailsCache.invalidate("legacy-hash-user");
+
+        mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login("legacy-hash-user", TestUsers.PASSWORD)))
+                .andExpect(status().isOk());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        String stored = storedHash();
+        while (!stored.startsWith("{bcrypt}") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            stored = storedHash();
+        }
+        assertTrue(stored.startsWith("{bcrypt}"), "hash was not upgraded: " + stored);
+
+        //The cached user was dropped, so the next login verifies against the new hash
+        mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login("legacy-hash-user", TestUsers.PASSWORD)))
+                .andExpect(status().isOk());
+    }
+
+    private String storedHash() {
+        return jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = ?",
+                String.class, "legacy-hash-user");
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.service;
+
+import org.example.TestUsers;
+import org.example.entities.UserInfo;
+import org.example.model.RefreshSession;
+import org.example.utils.TokenHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshSessionIntegrationTest {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sessionCarriesWhatTheRefreshEndpointNeeds() {
+        UserInfo user = signup("session-user");
+        String token = refreshTokenService.createRefreshTokenForUserId(user.getUserId()).getToken();
+
+        RefreshSession session = refreshTokenService.findSession(token).orElseThrow();
+
+        assertArrayEquals(TokenHasher.sha256(token), session.tokenHash());
+        assertEquals(user.getUserId(), session.userId());
+        assertEquals("session-user", session.username());
+        assertTrue(session.expiryDate().isAfter(Instant.now()));
+        assertTrue(refreshTokenService.findSession(token + "x").isEmpty());
+    }
+
+    //Rotation is a compare-and-set on the hash, the same session only rotates once
+    @Test
+    void sessionRotatesExactlyOnce() {
+        UserInfo user = signup("rotating-user");
+        String token = refreshTokenService.createRefreshTokenForUserId(user.getUserId()).getToken();
+        RefreshSession session = refreshTokenService.findSession(token).orElseThrow();
+
+        Optional<String> rotated = refreshTokenService.rotate(session);
+
+        assertTrue(rotated.isPresent());
+        assertNotEquals(token, rotated.get());
+        assertTrue(refreshTokenService.rotate(session).isEmpty());
+        assertTrue(refreshTokenService.findSession(token).isEmpty());
+        assertEquals(user.getUserId(), refreshTokenService.findSession(rotated.get()).orElseThrow().userId());
+    }
+
+    @Test
+    void expiredSessionIsDeletedByItsHash() {
+        UserInfo user = signup("expired-session-user");
+        String token = refreshTokenService.createRefreshTokenForUserId(user.getUserId()).getToken();
+        jdbcTemplate.update("UPDATE tokens SET expiry_date = ? WHERE token_hash = ?",
+                Timestamp.from(Instant.now().minus(1, ChronoUnit.DAYS)), TokenHasher.sha256(token));
+        RefreshSession session = refreshTokenService.findSession(token).orElseThrow();
+
+        assertThrows(RuntimeException.class, () -> refreshTokenService.verifyExpiration(session));
+        assertTrue(refreshTokenService.findSession(token).isEmpty());
+    }
+
+    //Signup assigns no roles, so stateless tokens carry an empty list rather than a failed lookup
+    @Test
+    void authoritiesAreReadWithoutTheUserEntity() {
+        UserInfo user = signup("roleless-user");
+
+        assertTrue(refreshTokenService.findAuthorities(user.getUserId()).isEmpty());
+    }
+
+    private UserInfo signup(String username) {
+        return userDetailsService.signupUser(TestUsers.dto(username));
+    }
+}
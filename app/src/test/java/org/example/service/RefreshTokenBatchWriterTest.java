@@ -0,0 +1,141 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshTokenBatchWriterTest {
+
+    private static final int MAX_SESSIONS = 3;
+
+    private TimeZone defaultZone;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private RefreshTokenBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        //Far from UTC, so binding in the JVM zone would shift the stored value by hours
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:batch-writer-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE users (user_id VARCHAR(36) PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE tokens (id INT AUTO_INCREMENT PRIMARY KEY, token_hash BINARY(32), "
+                + "user_id VARCHAR(36) REFERENCES users (user_id), expiry_date TIMESTAMP(6))");
+        jdbcTemplate.update("INSERT INTO users (user_id) VALUES ('user-1'), ('user-2')");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    void storesTheExpiryAsUtcWallClockInAnyJvmZone() {
+        writer = start(jdbcTemplate, 2000);
+        Instant expiry = Instant.parse("2026-11-16T23:30:00Z").plus(123, ChronoUnit.MILLIS);
+
+        assertTrue(writer.insert(hash(1), "user-1", expiry));
+
+        LocalDateTime stored = jdbcTemplate.queryForObject("SELECT expiry_date FROM tokens", LocalDateTime.class);
+        assertEquals(LocalDateTime.ofInstant(expiry, ZoneOffset.UTC), stored);
+    }
+
+    @Test
+    void refusesRowsOnceShutDown() throws InterruptedException {
+        writer = start(jdbcTemplate, 2000);
+        writer.shutdown();
+
+        assertThrows(IllegalStateException.class, () -> writer.insert(hash(1), "user-1", Instant.now()));
+        assertEquals(0, count());
+    }
+
+    @Test
+    void timedOutRowIsWithdrawnAndNeverStored() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JdbcTemplate stalling = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, PreparedStatementSetter pss) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.update(sql, pss);
+            }
+        };
+        writer = start(stalling, 100);
+
+        //The first row holds the writer inside its INSERT, the second waits in the queue behind it
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> writer.insert(hash(1), "user-1", Instant.now()));
+        Thread.sleep(50);
+        assertThrows(IllegalStateException.class, () -> writer.insert(hash(2), "user-2", Instant.now()));
+
+        release.countDown();
+        //The first caller's wait ran out too, but its row was already in flight: it gets the real outcome
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        writer.shutdown();
+        assertEquals(1, count());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens WHERE user_id = 'user-2'", Integer.class));
+    }
+
+    @Test
+    void trimsEachUserBackToTheSessionCap() {
+        writer = start(jdbcTemplate, 2000);
+        Instant now = Instant.now();
+        for (int i = 0; i < MAX_SESSIONS + 2; i++) {
+            assertTrue(writer.insert(hash(i), "user-1", now.plusSeconds(i)));
+        }
+
+        assertEquals(MAX_SESSIONS, count());
+        //The oldest two went, the newest one stayed
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens WHERE token_hash = ?",
+                Integer.class, (Object) hash(MAX_SESSIONS + 1)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens WHERE token_hash = ?",
+                Integer.class, (Object) hash(0)));
+    }
+
+    private static RefreshTokenBatchWriter start(JdbcTemplate jdbcTemplate, long waitMillis) {
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        RefreshTokenBatchWriter writer = new RefreshTokenBatchWriter(jdbcTemplate, transactionTemplate,
+                new SimpleMeterRegistry(), MAX_SESSIONS, true, 1, 0, 16, waitMillis);
+        writer.start();
+        return writer;
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens", Integer.class);
+    }
+
+    private static byte[] hash(int seed) {
+        byte[] hash = new byte[32];
+        hash[0] = (byte) seed;
+        return hash;
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.TestUsers;
+import org.example.utils.TokenHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "auth.refresh-token.backfill.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RefreshTokenHashIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RefreshTokenHashBackfill backfill;
+
+    @Test
+    void onlyTheDigestOfTheIssuedTokenIsStored() throws Exception {
+        signup("hashed-user");
+        String token = login("hashed-user");
+
+        List<byte[]> hashes = jdbcTemplate.queryForList(
+                "SELECT t.token_hash FROM tokens t JOIN users u ON u.user_id = t.user_id WHERE u.username = ?",
+                byte[].class, "hashed-user");
+
+        //Signup hands out a session too, so the login's digest is one of the user's rows
+        assertTrue(hashes.stream().anyMatch(hash -> Arrays.equals(TokenHasher.sha256(token), hash)));
+        assertTrue(hashes.stream().allMatch(hash -> hash.length == 32));
+    }
+
+    //A row written before hashing still refreshes once the backfill has converted it
+    @Test
+    void backfillHashesLegacyPlaintextRows() throws Exception {
+        signup("legacy-user");
+        String userId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE username = ?",
+                String.class, "legacy-user");
+        String legacyToken = "c1c8a2b4-1234-4321-bbd9-9c2a9e12b345";
+
+        jdbcTemplate.execute("ALTER TABLE tokens ADD COLUMN token VARCHAR(255)");
+        try {
+            jdbcTemplate.update("INSERT INTO tokens (token, expiry_date, user_id) VALUES (?, ?, ?)",
+                    legacyToken, Timestamp.from(Instant.now().plus(1, ChronoUnit.DAYS)), userId);
+
+            backfill.backfill();
+            //Rerunning is a no-op
+            backfill.backfill();
+
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM tokens WHERE token IS NOT NULL OR token_hash IS NULL", Integer.class));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM tokens WHERE token_hash = ?", Integer.class,
+                    (Object) TokenHasher.sha256(legacyToken)));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE tokens DROP COLUMN token");
+        }
+
+        mockMvc.perform(post("/auth/v1/refreshToken").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.refresh(legacyToken)))
+                .andExpect(status().isOk());
+    }
+
+    //Rows from before the user_id column: the owner comes from the old join on the token's own id
+    @Test
+    void backfillCarriesTheLegacyOwnerOverAndDropsOrphans() throws Exception {
+        jdbcTemplate.update("INSERT INTO users (user_id, username, password) VALUES (?, ?, ?)",
+                "900123", "legacy-owner", "unused");
+        String legacyToken = "7e1f0c2a-4321-1234-aa11-0f1e2d3c4b5a";
+        Timestamp expiry = Timestamp.from(Instant.now().plus(1, ChronoUnit.DAYS));
+
+        jdbcTemplate.execute("ALTER TABLE tokens ADD COLUMN token VARCHAR(255)");
+        try {
+            jdbcTemplate.update("INSERT INTO tokens (id, token, expiry_date) VALUES (?, ?, ?)",
+                    900123, legacyToken, expiry);
+            jdbcTemplate.update("INSERT INTO tokens (id, token, expiry_date) VALUES (?, ?, ?)",
+                    900124, "no-such-owner", expiry);
+
+            backfill.backfill();
+
+            assertEquals("900123", jdbcTemplate.queryForObject(
+                    "SELECT user_id FROM tokens WHERE token_hash = ?", String.class,
+                    (Object) TokenHasher.sha256(legacyToken)));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM tokens WHERE id = 900124", Integer.class));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE tokens DROP COLUMN token");
+        }
+
+        mockMvc.perform(post("/auth/v1/refreshToken").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.refresh(legacyToken)))
+                .andExpect(status().isOk());
+    }
+
+    //A schema created after hashing has no plaintext column, the backfill leaves it alone
+    @Test
+    void backfillSkipsSchemasWithoutTheLegacyColumn() throws Exception {
+        signup("fresh-user");
+        Integer before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens", Integer.class);
+
+        backfill.backfill();
+
+        assertEquals(before, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tokens", Integer.class));
+    }
+
+    private void signup(String username) throws Exception {
+        mockMvc.perform(post("/auth/v1/signup").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.signup(username)))
+                .andExpect(status().isOk());
+    }
+
+    private String login(String username) throws Exception {
+        String body = mockMvc.perform(post("/auth/v1/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUsers.login(username, TestUsers.PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("token").asText();
+    }
+}
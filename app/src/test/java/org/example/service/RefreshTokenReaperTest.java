@@ -0,0 +1,81 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenReaperTest {
+
+    private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RefreshTokenReaper reaper = new RefreshTokenReaper(repository, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        reaper.shutdown();
+    }
+
+    @Test
+    void purgesInBatchesOnItsOwnThread() throws InterruptedException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch lastBatch = new CountDownLatch(1);
+        int[] deleted = {2, 2, 1};
+        int[] call = {0};
+        when(repository.deleteExpiredBatch(any(Instant.class), anyInt())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            int result = call[0] < deleted.length ? deleted[call[0]++] : 0;
+            if (call[0] == deleted.length) {
+                lastBatch.countDown();
+            }
+            return result;
+        });
+        configure(true);
+
+        reaper.start();
+
+        assertTrue(lastBatch.await(5, TimeUnit.SECONDS));
+        reaper.shutdown();
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(reaper, "executor");
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("refresh-token-reaper-")));
+        assertEquals(5.0, meterRegistry.get("auth.refresh_tokens.purged").counter().count());
+    }
+
+    @Test
+    void disabledReaperSchedulesNothing() {
+        configure(false);
+
+        reaper.start();
+
+        assertNull(ReflectionTestUtils.getField(reaper, "executor"));
+    }
+
+    private void configure(boolean enabled) {
+        ReflectionTestUtils.setField(reaper, "enabled", enabled);
+        ReflectionTestUtils.setField(reaper, "batchSize", 2);
+        ReflectionTestUtils.setField(reaper, "pauseMillis", 10L);
+        ReflectionTestUtils.setField(reaper, "maxBatchesPerRun", 200);
+        ReflectionTestUtils.setField(reaper, "initialDelayMillis", 0L);
+        ReflectionTestUtils.setField(reaper, "intervalMillis", 60_000L);
+    }
+}
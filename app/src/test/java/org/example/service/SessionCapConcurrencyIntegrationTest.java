@@ -0,0 +1,63 @@
+package org.example.service;
+
+import org.example.TestUsers;
+import org.example.entities.UserInfo;
+import org.example.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionCapConcurrencyIntegrationTest {
+
+    private static final int LOGINS = 16;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${auth.refresh-token.max-sessions-per-user}")
+    private int maxSessionsPerUser;
+
+    @Test
+    void concurrentLoginsNeverExceedTheSessionCap() throws Exception {
+        UserInfo user = userDetailsService.signupUser(TestUsers.dto("busy-user"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> logins = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                logins.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.createRefreshTokenForUserId(user.getUserId());
+                }));
+            }
+            start.countDown();
+            for (Future<?> login : logins) {
+                login.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(maxSessionsPerUser, refreshTokenRepository.countByUserInfoUserId(user.getUserId()));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service;
+
+import org.example.TestUsers;
+import org.example.entities.UserInfo;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SignupConcurrencyIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentSignupsForOneNameCreateExactlyOneUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<UserInfo>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userDetailsService.signupUser(TestUsers.dto("racing-user"));
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<UserInfo> result : results) {
+                //Losers get null, never an exception
+                if (result.get() != null) {
+                    created++;
+                }
+            }
+            assertEquals(1, created);
+            assertNotNull(userRepository.findByUsername("racing-user"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void takenNameIsRefusedWithoutAnError() {
+        assertNotNull(userDetailsService.signupUser(TestUsers.dto("taken-user")));
+        assertNull(userDetailsService.signupUser(TestUsers.dto("taken-user")));
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserDetailsCacheTest {
+
+    private final UserDetailsCache cache = new UserDetailsCache(100, 300, 30, new SimpleMeterRegistry());
+
+    @Test
+    void caseVariantsShareOneEntry() {
+        AtomicInteger loads = new AtomicInteger();
+        UserDetails alice = new CustomUserDetails("1", "alice", "hash", List.of());
+        Function<String, UserDetails> loader = username -> {
+            loads.incrementAndGet();
+            return alice;
+        };
+
+        assertSame(alice, cache.get("alice", loader));
+        assertSame(alice, cache.get("Alice", loader));
+        assertSame(alice, cache.get("ALICE", loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void unknownUsernamesAreCachedNegatively() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, UserDetails> loader = username -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.get("ghost", loader));
+        assertNull(cache.get("Ghost", loader));
+        assertNull(cache.get("GHOST", loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateDropsEveryCaseVariant() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, UserDetails> missing = username -> {
+            loads.incrementAndGet();
+            return null;
+        };
+        cache.get("bob", missing);
+
+        //Signing up as "Bob" must clear the negative entry left by "bob"
+        cache.invalidate("Bob");
+        UserDetails bob = new CustomUserDetails("2", "Bob", "hash", List.of());
+        assertSame(bob, cache.get("bob", username -> bob));
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.auth.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalTokenStateStoreTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LocalTokenStateStore store = new LocalTokenStateStore(new RateLimitProperties(), 3, meterRegistry);
+
+    @Test
+    void fullStoreRefusesNewRevocationsInsteadOfEvictingOldOnes() {
+        Instant revokedAt = Instant.now();
+        store.revoke("user:a", revokedAt, TTL);
+        store.revoke("user:b", revokedAt, TTL);
+        store.revoke("user:c", revokedAt, TTL);
+
+        assertThrows(IllegalStateException.class, () -> store.revoke("user:d", revokedAt, TTL));
+
+        assertEquals(3, store.findRevocations(List.of("user:a", "user:b", "user:c", "user:d")).size());
+        assertEquals(1.0, meterRegistry.get("auth.token_state.revocations_rejected").counter().count());
+    }
+
+    @Test
+    void existingKeyCanBeRevokedAgainWhenFull() {
+        Instant first = Instant.now().minusSeconds(60);
+        store.revoke("user:a", first, TTL);
+        store.revoke("user:b", first, TTL);
+        store.revoke("user:c", first, TTL);
+
+        Instant second = Instant.now();
+        store.revoke("user:a", second, TTL);
+
+        assertEquals(second, store.findRevocations(List.of("user:a")).get("user:a"));
+    }
+
+    @Test
+    void expiredRevocationsAreNotReported() {
+        store.revoke("user:a", Instant.now(), Duration.ZERO);
+
+        assertEquals(0, store.findRevocations(List.of("user:a")).size());
+    }
+
+    @Test
+    void rejectedRequestTakesNoTokenFromItsOtherBuckets() {
+        RateLimit roomy = new RateLimit("login:ip:10.0.0.1", 2, Duration.ofMinutes(1));
+        RateLimit tight = new RateLimit("login:user:alice", 1, Duration.ofMinutes(1));
+        assertEquals(0, store.tryAcquire(List.of(tight))[0]);
+
+        long[] waits = store.tryAcquire(List.of(roomy, tight));
+        assertEquals(0, waits[0]);
+        assertTrue(waits[1] > 0);
+
+        //Both of the roomy bucket's tokens are still there
+        assertEquals(0, store.tryAcquire(List.of(roomy))[0]);
+        assertEquals(0, store.tryAcquire(List.of(roomy))[0]);
+        assertTrue(store.tryAcquire(List.of(roomy))[0] > 0);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.store;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The Lua bucket script and the revocation keys against a real redis-server on a free port
+class RedisTokenStateStoreTest {
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    private RedisTokenStateStore store;
+
+    private String keyPrefix;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    //Own prefix per test, so buckets never carry over
+    @BeforeEach
+    void setUp() {
+        keyPrefix = "test-" + UUID.randomUUID() + ":";
+        store = new RedisTokenStateStore(redisTemplate, keyPrefix);
+    }
+
+    @Test
+    void admitsUpToCapacityThenReportsTheWait() {
+        RateLimit limit = new RateLimit("login:user:alice", 3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, store.tryAcquire(List.of(limit))[0]);
+        }
+        long wait = store.tryAcquire(List.of(limit))[0];
+
+        //One token comes back every 20 seconds
+        assertTrue(wait > 0 && wait <= Duration.ofSeconds(20).toNanos(), "wait was " + wait);
+    }
+
+    @Test
+    void rejectedRequestTakesNoTokenFromItsOtherBuckets() {
+        RateLimit roomy = new RateLimit("login:ip:10.0.0.1", 2, Duration.ofMinutes(1));
+        RateLimit tight = new RateLimit("login:user:alice", 1, Duration.ofMinutes(1));
+        assertEquals(0, store.tryAcquire(List.of(tight))[0]);
+
+        long[] waits = store.tryAcquire(List.of(roomy, tight));
+        assertEquals(0, waits[0]);
+        assertTrue(waits[1] > 0);
+
+        //Never written, so both of the roomy bucket's tokens are still there
+        assertEquals(Boolean.FALSE, redisTemplate.hasKey(keyPrefix + "rl:login:ip:10.0.0.1"));
+        assertEquals(0, store.tryAcquire(List.of(roomy))[0]);
+        assertEquals(0, store.tryAcquire(List.of(roomy))[0]);
+        assertTrue(store.tryAcquire(List.of(roomy))[0] > 0);
+    }
+
+    @Test
+    void bucketKeyExpiresOnceTheBucketWouldBeFullAgain() {
+        store.tryAcquire(List.of(new RateLimit("signup:ip:10.0.0.1", 10, Duration.ofMinutes(1))));
+
+        long ttlMillis = redisTemplate.getExpire(keyPrefix + "rl:signup:ip:10.0.0.1", TimeUnit.MILLISECONDS);
+        assertTrue(ttlMillis > 0 && ttlMillis <= 6_001, "ttl was " + ttlMillis);
+    }
+
+    @Test
+    void revocationsAreFoundUntilTheyExpire() {
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        store.revoke("user:alice", revokedAt, Duration.ofMinutes(5));
+
+        Map<String, Instant> found = store.findRevocations(List.of("user:alice", "user:bob"));
+
+        assertEquals(Map.of("user:alice", revokedAt), found);
+        assertTrue(redisTemplate.getExpire(keyPrefix + "revoked:user:alice") > 0);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenGeneratorTest {
+
+    private static final Pattern BASE64URL_NO_PADDING = Pattern.compile("[A-Za-z0-9_-]{43}");
+
+    @Test
+    void tokenIsThirtyTwoBytesOfUnpaddedBase64Url() {
+        String token = TokenGenerator.newToken();
+
+        assertTrue(BASE64URL_NO_PADDING.matcher(token).matches(), token);
+        assertEquals(TokenGenerator.TOKEN_BYTES, Base64.getUrlDecoder().decode(token).length);
+    }
+
+    //Threads spread over the stripes, and no two of them may ever hand out the same token
+    @Test
+    void concurrentCallersNeverShareAToken() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        Set<String> tokens = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        tokens.add(TokenGenerator.newToken());
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, tokens.size());
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TokenHasherTest {
+
+    @Test
+    void matchesTheSha256TestVector() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HexFormat.of().formatHex(TokenHasher.sha256("abc")));
+    }
+
+    //Fits the BINARY(32) column whatever the token looks like
+    @Test
+    void digestIsAlwaysThirtyTwoBytes() {
+        assertEquals(32, TokenHasher.sha256("").length);
+        assertEquals(32, TokenHasher.sha256("c1c8a2b4-1234-4321-bbd9-9c2a9e12b345").length);
+        assertEquals(32, TokenHasher.sha256("x".repeat(4096)).length);
+    }
+
+    @Test
+    void sameTokenAlwaysFindsTheSameRow() {
+        String token = TokenGenerator.newToken();
+
+        assertArrayEquals(TokenHasher.sha256(token), TokenHasher.sha256(token));
+        assertFalse(Arrays.equals(TokenHasher.sha256(token), TokenHasher.sha256(token + "x")));
+    }
+}
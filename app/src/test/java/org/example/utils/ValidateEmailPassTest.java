@@ -0,0 +1,63 @@
+package org.example.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidateEmailPassTest {
+
+    private final ValidateEmailPass validator = new ValidateEmailPass(List.of("gmail"), List.of("com"));
+
+    @Test
+    void acceptsPasswordsUpToSeventyTwoBytes() {
+        assertTrue(validator.validatePassword("Aa1!" + "x".repeat(68)));
+    }
+
+    @Test
+    void rejectsPasswordsOverSeventyTwoBytes() {
+        assertThrows(IllegalArgumentException.class, () -> validator.validatePassword("Aa1!" + "x".repeat(69)));
+    }
+
+    //Counted in UTF-8 bytes, which is what bcrypt sees: 40 characters but 76 bytes
+    @Test
+    void countsMultiByteCharactersByTheirEncodedLength() {
+        assertThrows(IllegalArgumentException.class, () -> validator.validatePassword("Aa1!" + "é".repeat(36)));
+    }
+
+    //Rules are reported in the same order as before the single-pass scan
+    @Test
+    void reportsTheFirstMissingCharacterClass() {
+        assertEquals("Password must be at least 12 characters long", passwordError("Aa1!"));
+        assertEquals("Password must contain at least one lowercase letter", passwordError("AAAAAAAAAAA1!"));
+        assertEquals("Password must contain at least one uppercase letter", passwordError("aaaaaaaaaaa1"));
+        assertEquals("Password must contain at least one digit", passwordError("Aaaaaaaaaaa!"));
+        assertEquals("Password must contain at least one special character among (@, $, !, %, *, ?, &)",
+                passwordError("Aaaaaaaaaaa1#"));
+    }
+
+    @Test
+    void acceptsKnownDomainsAndTlds() {
+        assertTrue(validator.validateEmail("someone@gmail.com"));
+        //Only the first label after the domain is the TLD
+        assertTrue(validator.validateEmail("someone@gmail.com.au"));
+    }
+
+    @Test
+    void rejectsMalformedOrUnknownEmails() {
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail(null));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("a@gmail.c"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("someone.gmail.com"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("someone@gmail@com.com"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("someone@yahoo.com"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("someone@gmail.org"));
+        assertThrows(IllegalArgumentException.class, () -> validator.validateEmail("x".repeat(41) + "@gmail.com"));
+    }
+
+    private String passwordError(String password) {
+        return assertThrows(IllegalArgumentException.class, () -> validator.validatePassword(password)).getMessage();
+    }
+}